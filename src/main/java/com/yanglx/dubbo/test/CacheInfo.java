@@ -1,11 +1,15 @@
 package com.yanglx.dubbo.test;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.yanglx.dubbo.test.dubbo.DubboMethodEntity;
 import com.yanglx.dubbo.test.utils.Json;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
@@ -47,12 +51,77 @@ public class CacheInfo implements Serializable {
      */
     private String address;
 
+    /**
+     * Timeout(ms)
+     */
+    private Integer timeout;
+
+    /**
+     * Batch params
+     */
+    private String batchJson;
+
+    /**
+     * Batch file
+     */
+    private String batchFile;
+
+    /**
+     * Batch depth
+     */
+    private Integer depth;
+
+    /**
+     * Param feed file
+     */
+    private String feedFile;
+
+    /**
+     * Assertions
+     */
+    private String assertionsJson;
+
+    /**
+     * Max requests per second, dubbo 配置中使用, 为空或 0 时不限制
+     */
+    private Integer maxRps;
+
     private String name;
 
     private String id;
 
     private Date date;
 
+    /**
+     * Hits, 相同内容的历史执行的次数
+     */
+    private Integer hits;
+
+    /**
+     * Last run date
+     */
+    private Date lastRun;
+
+    /**
+     * 记录了耗时的执行次数
+     */
+    private Integer latencyCount;
+
+    /**
+     * Min latency(ms)
+     */
+    private Long latencyMin;
+
+    /**
+     * Max latency(ms)
+     */
+    private Long latencyMax;
+
+    /**
+     * Total latency(ms), 用于计算平均耗时
+     */
+    private Long latencyTotal;
+
     public String getInterfaceName() {
         return interfaceName;
     }
@@ -109,6 +178,62 @@ public class CacheInfo implements Serializable {
         this.address = address;
     }
 
+    public Integer getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Integer timeout) {
+        this.timeout = timeout;
+    }
+
+    public String getBatchJson() {
+        return batchJson;
+    }
+
+    public void setBatchJson(String batchJson) {
+        this.batchJson = batchJson;
+    }
+
+    public String getBatchFile() {
+        return batchFile;
+    }
+
+    public void setBatchFile(String batchFile) {
+        this.batchFile = batchFile;
+    }
+
+    public Integer getDepth() {
+        return depth;
+    }
+
+    public void setDepth(Integer depth) {
+        this.depth = depth;
+    }
+
+    public String getFeedFile() {
+        return feedFile;
+    }
+
+    public void setFeedFile(String feedFile) {
+        this.feedFile = feedFile;
+    }
+
+    public String getAssertionsJson() {
+        return assertionsJson;
+    }
+
+    public void setAssertionsJson(String assertionsJson) {
+        this.assertionsJson = assertionsJson;
+    }
+
+    public Integer getMaxRps() {
+        return maxRps;
+    }
+
+    public void setMaxRps(Integer maxRps) {
+        this.maxRps = maxRps;
+    }
+
     public String getName() {
         return name;
     }
@@ -133,6 +258,92 @@ public class CacheInfo implements Serializable {
         this.date = date;
     }
 
+    public Integer getHits() {
+        return hits;
+    }
+
+    public void setHits(Integer hits) {
+        this.hits = hits;
+    }
+
+    public Date getLastRun() {
+        return lastRun;
+    }
+
+    public void setLastRun(Date lastRun) {
+        this.lastRun = lastRun;
+    }
+
+    public Integer getLatencyCount() {
+        return latencyCount;
+    }
+
+    public void setLatencyCount(Integer latencyCount) {
+        this.latencyCount = latencyCount;
+    }
+
+    public Long getLatencyMin() {
+        return latencyMin;
+    }
+
+    public void setLatencyMin(Long latencyMin) {
+        this.latencyMin = latencyMin;
+    }
+
+    public Long getLatencyMax() {
+        return latencyMax;
+    }
+
+    public void setLatencyMax(Long latencyMax) {
+        this.latencyMax = latencyMax;
+    }
+
+    public Long getLatencyTotal() {
+        return latencyTotal;
+    }
+
+    public void setLatencyTotal(Long latencyTotal) {
+        this.latencyTotal = latencyTotal;
+    }
+
+    /**
+     * 记录一次执行的耗时
+     *
+     * @param millis latency(ms)
+     */
+    public void recordLatency(long millis) {
+        this.latencyCount = this.latencyCount == null ? 1 : this.latencyCount + 1;
+        this.latencyMin = this.latencyMin == null ? millis : Math.min(this.latencyMin, millis);
+        this.latencyMax = this.latencyMax == null ? millis : Math.max(this.latencyMax, millis);
+        this.latencyTotal = this.latencyTotal == null ? millis : this.latencyTotal + millis;
+    }
+
+    /**
+     * 内容的 hash, 包括除名称, id, 时间和统计以外的所有字段, 用于合并重复的历史
+     *
+     * @return sha-256 hex
+     */
+    public String contentHash() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        Object[] fields = {interfaceName, methodName, version, group, address, methodTypeJson, paramObjJson,
+                timeout, batchJson, batchFile, depth, feedFile, assertionsJson};
+        for (Object field : fields) {
+            //null 和空字符串不同, 字段之间用 \0 分隔
+            digest.update(field == null ? new byte[]{1} : String.valueOf(field).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
     public static CacheInfo of(String id, String name, DubboMethodEntity dubboMethodEntity) {
         CacheInfo cacheInfo = new CacheInfo();
         cacheInfo.setId(id);
@@ -144,6 +355,16 @@ public class CacheInfo implements Serializable {
         cacheInfo.setMethodTypeJson(Json.stringify(dubboMethodEntity.getMethodType()));
         cacheInfo.setParamObjJson(Json.stringify(dubboMethodEntity.getParam()));
         cacheInfo.setAddress(dubboMethodEntity.getAddress());
+        cacheInfo.setTimeout(dubboMethodEntity.getTimeout());
+        if (dubboMethodEntity.getBatch() != null) {
+            cacheInfo.setBatchJson(Json.stringify(dubboMethodEntity.getBatch()));
+        }
+        cacheInfo.setBatchFile(dubboMethodEntity.getBatchFile());
+        cacheInfo.setDepth(dubboMethodEntity.getDepth());
+        cacheInfo.setFeedFile(dubboMethodEntity.getFeedFile());
+        if (dubboMethodEntity.getAssertions() != null) {
+            cacheInfo.setAssertionsJson(Json.stringify(dubboMethodEntity.getAssertions()));
+        }
         cacheInfo.setDate(new Date());
         return cacheInfo;
     }
@@ -153,6 +374,7 @@ public class CacheInfo implements Serializable {
      *
      * @return
      */
+    @JsonIgnore
     public DubboMethodEntity getDubboMethodEntity() {
         DubboMethodEntity dubboMethodEntity = new DubboMethodEntity();
         dubboMethodEntity.setId(getId());
@@ -175,12 +397,22 @@ public class CacheInfo implements Serializable {
             dubboMethodEntity.setParam(array);
         }
         dubboMethodEntity.setAddress(getAddress());
+        dubboMethodEntity.setTimeout(getTimeout());
+        if (StringUtils.isNotBlank(getBatchJson())) {
+            dubboMethodEntity.setBatch(Json.fromJson(getBatchJson(), Object[][].class));
+        }
+        dubboMethodEntity.setBatchFile(getBatchFile());
+        dubboMethodEntity.setDepth(getDepth());
+        dubboMethodEntity.setFeedFile(getFeedFile());
+        if (StringUtils.isNotBlank(getAssertionsJson())) {
+            dubboMethodEntity.setAssertions(Json.fromJson(getAssertionsJson(), String[].class));
+        }
         return dubboMethodEntity;
     }
 
     @Override
     public String toString() {
-        return name;
+        return hits == null || hits <= 1 ? name : name + " ×" + hits;
     }
 
     @Override
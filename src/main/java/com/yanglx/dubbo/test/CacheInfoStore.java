@@ -0,0 +1,213 @@
+package com.yanglx.dubbo.test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 收藏和历史的存储: 按插入顺序的环形数组加 id 索引, 读取时已经是从新到旧的顺序, 按 id 查找和删除不需要遍历.
+ * 删除的位置先留空, 数组写满时整理或扩容
+ */
+public class CacheInfoStore {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 最多保存的条数, 超过时淘汰最旧的, 0 表示不限制
+     */
+    private int maxSize;
+
+    /**
+     * 第 seq 条保存在 slots[seq % slots.length], 删除后为 null
+     */
+    private CacheInfo[] slots = new CacheInfo[INITIAL_CAPACITY];
+
+    /**
+     * 最旧一条的序号
+     */
+    private long head;
+
+    /**
+     * 下一条的序号
+     */
+    private long tail;
+
+    /**
+     * id -> 序号
+     */
+    private final Map<String, Long> index = new HashMap<>();
+
+    public CacheInfoStore(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 添加到最新的位置, id 已存在时替换原来的记录
+     *
+     * @param cacheInfo cache info
+     * @return 超过最大条数时被淘汰的记录
+     */
+    public synchronized List<CacheInfo> add(CacheInfo cacheInfo) {
+        this.remove(cacheInfo.getId());
+        List<CacheInfo> evicted = new ArrayList<>(0);
+        while (this.maxSize > 0 && this.index.size() >= this.maxSize) {
+            evicted.add(this.removeOldest());
+        }
+        if (this.tail - this.head == this.slots.length) {
+            this.resize(Math.max(INITIAL_CAPACITY, (this.index.size() + 1) * 2));
+        }
+        this.slots[this.slot(this.tail)] = cacheInfo;
+        this.index.put(cacheInfo.getId(), this.tail++);
+        return evicted;
+    }
+
+    /**
+     * 修改最多保存的条数
+     *
+     * @param maxSize 0 表示不限制
+     * @return 超过新的最大条数时被淘汰的记录
+     */
+    public synchronized List<CacheInfo> setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        List<CacheInfo> evicted = new ArrayList<>(0);
+        while (maxSize > 0 && this.index.size() > maxSize) {
+            evicted.add(this.removeOldest());
+        }
+        return evicted;
+    }
+
+    /**
+     * 删除最旧的一条
+     *
+     * @return 删除的记录, 为空时返回 null
+     */
+    public synchronized CacheInfo removeOldest() {
+        if (this.index.isEmpty()) {
+            return null;
+        }
+        this.trimHead();
+        int slot = this.slot(this.head);
+        CacheInfo oldest = this.slots[slot];
+        this.index.remove(oldest.getId());
+        this.slots[slot] = null;
+        this.trimHead();
+        return oldest;
+    }
+
+    /**
+     * 按 id 查找
+     *
+     * @param id id
+     * @return 不存在时返回 null
+     */
+    public synchronized CacheInfo get(String id) {
+        Long seq = this.index.get(id);
+        return seq == null ? null : this.slots[this.slot(seq)];
+    }
+
+    /**
+     * 按 id 删除
+     *
+     * @param id id
+     * @return 删除的记录, 不存在时返回 null
+     */
+    public synchronized CacheInfo remove(String id) {
+        Long seq = id == null ? null : this.index.remove(id);
+        if (seq == null) {
+            return null;
+        }
+        int slot = this.slot(seq);
+        CacheInfo removed = this.slots[slot];
+        this.slots[slot] = null;
+        this.trimHead();
+        return removed;
+    }
+
+    public synchronized void clear() {
+        this.slots = new CacheInfo[INITIAL_CAPACITY];
+        this.head = 0;
+        this.tail = 0;
+        this.index.clear();
+    }
+
+    public synchronized int size() {
+        return this.index.size();
+    }
+
+    /**
+     * 从新到旧的记录
+     *
+     * @return 新的列表, 修改不影响存储
+     */
+    public synchronized List<CacheInfo> newestFirst() {
+        List<CacheInfo> list = new ArrayList<>(this.index.size());
+        for (long seq = this.tail - 1; seq >= this.head; seq--) {
+            CacheInfo cacheInfo = this.slots[this.slot(seq)];
+            if (cacheInfo != null) {
+                list.add(cacheInfo);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 从旧到新的记录, 用于持久化
+     *
+     * @return 新的列表, 修改不影响存储
+     */
+    public synchronized List<CacheInfo> oldestFirst() {
+        List<CacheInfo> list = new ArrayList<>(this.index.size());
+        for (long seq = this.head; seq < this.tail; seq++) {
+            CacheInfo cacheInfo = this.slots[this.slot(seq)];
+            if (cacheInfo != null) {
+                list.add(cacheInfo);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 替换为持久化的记录, 按时间排序一次, 兼容旧版本保存的无序列表
+     *
+     * @param cacheInfos cache infos
+     */
+    public synchronized void load(List<CacheInfo> cacheInfos) {
+        List<CacheInfo> sorted = new ArrayList<>(cacheInfos);
+        sorted.removeIf(cacheInfo -> cacheInfo == null || cacheInfo.getId() == null);
+        sorted.sort(Comparator.comparing(CacheInfo::getDate, Comparator.nullsFirst(Comparator.naturalOrder())));
+        this.clear();
+        for (CacheInfo cacheInfo : sorted) {
+            this.add(cacheInfo);
+        }
+    }
+
+    /**
+     * 跳过头部已经删除的位置
+     */
+    private void trimHead() {
+        while (this.head < this.tail && this.slots[this.slot(this.head)] == null) {
+            this.head++;
+        }
+    }
+
+    /**
+     * 整理到新的数组, 重新编号
+     */
+    private void resize(int capacity) {
+        List<CacheInfo> live = this.oldestFirst();
+        this.slots = new CacheInfo[capacity];
+        this.index.clear();
+        this.head = 0;
+        this.tail = 0;
+        for (CacheInfo cacheInfo : live) {
+            this.slots[(int) this.tail] = cacheInfo;
+            this.index.put(cacheInfo.getId(), this.tail++);
+        }
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % this.slots.length);
+    }
+}
@@ -0,0 +1,110 @@
+package com.yanglx.dubbo.test;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.yanglx.dubbo.test.dubbo.ReferenceCache;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Description: 插件共用的调用线程池, 所有 tab 共享, 插件卸载或 IDE 退出时关闭并销毁缓存的引用</p>
+ *
+ * @since 1.3.2
+ */
+public class DubboExecutorService implements Executor, Disposable {
+
+    /**
+     * 线程数
+     */
+    private static final int POOL_SIZE = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * 最大排队任务数
+     */
+    private static final int QUEUE_CAPACITY = 256;
+
+    /**
+     * 空闲引用检查间隔(秒)
+     */
+    private static final long EVICT_IDLE_INTERVAL = 60;
+
+    private final ThreadPoolExecutor executor;
+
+    private final ScheduledFuture<?> evictIdleTask;
+
+    public DubboExecutorService() {
+        this.executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                new PluginThreadFactory("invoker"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.evictIdleTask = AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(
+                () -> ReferenceCache.getInstance().evictIdle(),
+                EVICT_IDLE_INTERVAL, EVICT_IDLE_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Gets instance *
+     *
+     * @return the instance
+     */
+    public static DubboExecutorService getInstance() {
+        return ServiceManager.getService(DubboExecutorService.class);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        this.executor.execute(command);
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        return this.executor.submit(task);
+    }
+
+    public Future<?> submit(Runnable task) {
+        return this.executor.submit(task);
+    }
+
+    /**
+     * 排队中的任务数
+     */
+    public int getQueueDepth() {
+        return this.executor.getQueue().size();
+    }
+
+    /**
+     * 执行中的任务数
+     */
+    public int getActiveCount() {
+        return this.executor.getActiveCount();
+    }
+
+    public int getPoolSize() {
+        return this.executor.getPoolSize();
+    }
+
+    public long getCompletedTaskCount() {
+        return this.executor.getCompletedTaskCount();
+    }
+
+    @Override
+    public String toString() {
+        return "active:" + getActiveCount() + " queued:" + getQueueDepth() + " completed:" + getCompletedTaskCount();
+    }
+
+    @Override
+    public void dispose() {
+        this.evictIdleTask.cancel(false);
+        this.executor.shutdownNow();
+        //释放所有连接和注册中心订阅
+        ReferenceCache.getInstance().destroyAll();
+    }
+}
@@ -39,6 +39,8 @@ public class DubboPanelToolWindow implements ToolWindowFactory {
         ContentFactory contentFactory = ContentFactory.SERVICE.getInstance();
         //        ContentFactory contentFactory = ContentFactory.getInstance();
         Content content = contentFactory.createContent(dubboPanel, null, false);
+        //关闭项目时释放
+        content.setDisposer(dubboPanel);
         toolWindow.getContentManager().addContent(content);
     }
 
@@ -1,16 +1,40 @@
 package com.yanglx.dubbo.test;
 
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.PathManager;
 import com.intellij.openapi.components.PersistentStateComponent;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.components.State;
 import com.intellij.openapi.components.Storage;
 import com.intellij.util.xmlb.XmlSerializerUtil;
+import com.yanglx.dubbo.test.dubbo.DubboMethodEntity;
+import com.yanglx.dubbo.test.dubbo.RateLimiters;
+import com.yanglx.dubbo.test.dubbo.ReferenceCache;
+import com.yanglx.dubbo.test.load.AbortPolicy;
+import com.yanglx.dubbo.test.utils.IntellijUtils;
+import org.apache.dubbo.common.utils.NamedThreadFactory;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 /**
  * <p>Description: </p>
@@ -25,35 +49,161 @@ import java.util.List;
         name = "com.yanglx.dubbo.test.DubboSetingState",
         storages = {@Storage("dubbo.test.configs.xml")}
 )
-public class DubboSetingState implements PersistentStateComponent<DubboSetingState> {
+public class DubboSetingState implements PersistentStateComponent<DubboSetingState>, Disposable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DubboSetingState.class);
 
     /**
-     * 存放收藏
+     * 存放收藏, 只用于持久化, 保存时从 collections 写入
      */
     public LinkedList<CacheInfo> paramInfoCacheList = new LinkedList<>();
     /**
-     * 存放历史
+     * 旧版本保存的历史, 只用于迁移到 {@link HistoryJournal}, 迁移后清空
      */
     public LinkedList<CacheInfo> historyParamInfoCacheList = new LinkedList<>();
 
     public List<CacheInfo> dubboConfigs = new ArrayList<>();
-    //限制最大历史记录条数
-    private static final int MAX_HISTORY_SIZE = 200;
 
     /**
-     * Gets address *
+     * 最多缓存的引用数
+     */
+    public int referenceCacheMaxSize = ReferenceCache.DEFAULT_MAX_SIZE;
+
+    /**
+     * 引用空闲多久后销毁(分钟)
+     */
+    public int referenceIdleMinutes = ReferenceCache.DEFAULT_IDLE_MINUTES;
+
+    /**
+     * 默认超时时间(ms), 请求未指定超时时间时使用
+     */
+    public int defaultTimeout = DubboMethodEntity.DEFAULT_TIMEOUT;
+
+    /**
+     * 压测和批量调用的错误率(%)超过时中止, 0 表示不中止
+     */
+    public int abortErrorRate = AbortPolicy.DEFAULT_ERROR_RATE;
+
+    /**
+     * 压测和批量调用的超时率(%)超过时中止, 0 表示不中止
+     */
+    public int abortTimeoutRate = AbortPolicy.DEFAULT_TIMEOUT_RATE;
+
+    /**
+     * 最多保存的历史条数, 0 表示不限制
+     */
+    public int historyMaxEntries = HistoryJournal.DEFAULT_MAX_ENTRIES;
+
+    /**
+     * 历史最多占用的空间(MB), 0 表示不限制
+     */
+    public int historyMaxMegabytes = HistoryJournal.DEFAULT_MAX_MEGABYTES;
+
+    /**
+     * 运行时的收藏
+     */
+    private final CacheInfoStore collections = new CacheInfoStore(0);
+
+    /**
+     * 历史日志文件
+     */
+    private static final String HISTORY_JOURNAL = "dubbo-test/history.jsonl";
+
+    /**
+     * 索引中已淘汰的记录超过这个数量时清理
+     */
+    private static final int INDEX_PRUNE_SLACK = 64;
+
+    /**
+     * 历史保存在单独的日志文件中, 不随设置一起序列化, 第一次使用时在后台打开
+     */
+    private final CompletableFuture<HistoryJournal> history = new CompletableFuture<>();
+
+    private final AtomicBoolean historyOpening = new AtomicBoolean();
+
+    /**
+     * 打开, 修改和压缩历史的线程, 按提交的顺序执行, 不阻塞 EDT
+     */
+    private final ExecutorService historyExecutor = Executors.newSingleThreadExecutor(
+            new NamedThreadFactory(PluginConstants.PLUGIN_NAME + "-history", true));
+
+    /**
+     * 收藏的搜索索引
+     */
+    private final SearchIndex collectionIndex = new SearchIndex();
+
+    /**
+     * 历史的搜索索引, 打开日志文件后在后台读取历史建立
+     */
+    private final SearchIndex historyIndex = new SearchIndex();
+
+    private final CompletableFuture<Void> historyIndexed = new CompletableFuture<>();
+
+    /**
+     * 从新到旧的收藏或历史
      *
-     * @return the address
+     * @return 新的列表, 修改不影响缓存. 历史还没有加载完成时为空
      * @since 1.0.0
      */
     public List<CacheInfo> getParamInfoCache(CacheType cacheType) {
         if (CacheType.COLLECTIONS.equals(cacheType)) {
-            paramInfoCacheList.sort((o1, o2) -> o2.getDate().compareTo(o1.getDate()));
-            return paramInfoCacheList;
-        } else {
-            historyParamInfoCacheList.sort((o1, o2) -> o2.getDate().compareTo(o1.getDate()));
-            return historyParamInfoCacheList;
+            return this.collections.newestFirst();
+        }
+        HistoryJournal history = this.history().getNow(null);
+        return history == null ? new ArrayList<>() : history.newestFirst();
+    }
+
+    /**
+     * 历史是否已经加载完成
+     */
+    public boolean isHistoryLoaded() {
+        return this.history().isDone();
+    }
+
+    /**
+     * 历史加载完成时完成
+     */
+    public CompletableFuture<Void> historyLoaded() {
+        return this.history().thenAccept(history -> {
+        });
+    }
+
+    /**
+     * 历史的搜索索引建立完成时完成, 之前搜索只能找到部分历史
+     */
+    public CompletableFuture<Void> historyIndexed() {
+        this.history();
+        return this.historyIndexed;
+    }
+
+    /**
+     * 搜索收藏或历史
+     *
+     * @param query 接口名, 方法名, 地址或参数中的关键字, 为空时返回全部
+     * @return 从新到旧的匹配记录
+     */
+    public List<CacheInfo> search(String query, CacheType cacheType) {
+        List<CacheInfo> all = this.getParamInfoCache(cacheType);
+        SearchIndex index = CacheType.COLLECTIONS.equals(cacheType) ? this.collectionIndex : this.historyIndex;
+        Set<String> ids = index.search(query);
+        if (ids == null) {
+            return all;
+        }
+        List<CacheInfo> result = new ArrayList<>();
+        for (CacheInfo cacheInfo : all) {
+            if (ids.contains(cacheInfo.getId())) {
+                result.add(cacheInfo);
+            }
         }
+        //历史超过上限时在日志中淘汰, 索引中留下的 id 在这里清理
+        if (index.size() > all.size() * 2 + INDEX_PRUNE_SLACK) {
+            Set<String> liveIds = new HashSet<>();
+            for (CacheInfo cacheInfo : all) {
+                liveIds.add(cacheInfo.getId());
+            }
+            index.retainAll(liveIds);
+        }
+        return result;
     }
 
     public void setDubboConfigs(List<CacheInfo> cacheInfo) {
@@ -61,6 +211,30 @@ public class DubboSetingState implements PersistentStateComponent<DubboSetingSta
         this.dubboConfigs.addAll(cacheInfo);
     }
 
+    /**
+     * 每个地址的每秒请求上限, 同一地址有多个配置时取最小的上限
+     *
+     * @return address -> max rps
+     */
+    public Map<String, Integer> getMaxRpsByAddress() {
+        Map<String, Integer> maxRps = new HashMap<>();
+        for (CacheInfo config : this.getDubboConfigs()) {
+            if (config.getAddress() != null && config.getMaxRps() != null && config.getMaxRps() > 0) {
+                maxRps.merge(config.getAddress(), config.getMaxRps(), Math::min);
+            }
+        }
+        return maxRps;
+    }
+
+    /**
+     * 压测和批量调用的中止条件
+     *
+     * @return the abort policy
+     */
+    public AbortPolicy getAbortPolicy() {
+        return new AbortPolicy(this.abortErrorRate, this.abortTimeoutRate);
+    }
+
     public List<CacheInfo> getDubboConfigs() {
         if (this.dubboConfigs.isEmpty()) {
             CacheInfo cacheInfo = new CacheInfo();
@@ -73,52 +247,160 @@ public class DubboSetingState implements PersistentStateComponent<DubboSetingSta
     }
 
     /**
-     * 添加
+     * 添加. 历史在后台写入日志文件
      *
      * @param cacheInfo
+     * @return 保存的 id, 历史合并时是已有历史的 id
      * @since 1.0.0
      */
-    public void add(CacheInfo cacheInfo, CacheType cacheType) {
+    public CompletableFuture<String> add(CacheInfo cacheInfo, CacheType cacheType) {
         if (CacheType.COLLECTIONS.equals(cacheType)) {
-            this.paramInfoCacheList.remove(cacheInfo);
-            this.paramInfoCacheList.add(cacheInfo);
-        } else {
-            if (historyParamInfoCacheList.size() >= MAX_HISTORY_SIZE) {
-                this.historyParamInfoCacheList.addFirst(cacheInfo);
-                this.historyParamInfoCacheList.removeLast();
-            } else {
-                this.historyParamInfoCacheList.add(cacheInfo);
-            }
+            this.collections.add(cacheInfo);
+            this.collectionIndex.add(cacheInfo.getId(), cacheInfo);
+            return CompletableFuture.completedFuture(cacheInfo.getId());
         }
+        return this.withHistory(history -> {
+            //内容相同的历史合并到已有的历史
+            String id = history.add(cacheInfo);
+            this.historyIndex.add(id, cacheInfo);
+            return id;
+        });
+    }
+
+    /**
+     * 记录历史执行成功的耗时
+     *
+     * @param id     历史的 id
+     * @param millis latency(ms)
+     */
+    public void recordLatency(String id, long millis) {
+        this.withHistory(history -> {
+            history.recordLatency(id, millis);
+            return null;
+        });
     }
 
+    /**
+     * 按 id 查找, 历史的完整内容从日志文件中读取
+     *
+     * @return 不存在或历史还没有加载完成时返回 null
+     */
     public CacheInfo getCacheInfo(String id, CacheType cacheType) {
         if (CacheType.COLLECTIONS.equals(cacheType)) {
-            for (CacheInfo cacheInfo : paramInfoCacheList) {
-                if (cacheInfo.getId().equals(id)) {
-                    return cacheInfo;
-                }
-            }
-        } else {
-            for (CacheInfo cacheInfo : historyParamInfoCacheList) {
-                if (cacheInfo.getId().equals(id)) {
-                    return cacheInfo;
-                }
-            }
+            return this.collections.get(id);
         }
-        return null;
+        HistoryJournal history = this.history().getNow(null);
+        return history == null ? null : history.get(id);
     }
 
     /**
      * 移除缓存
+     *
+     * @return 历史在后台移除, 完成后刷新
      */
-    public void remove(CacheInfo cacheInfo, CacheType cacheType) {
+    public CompletableFuture<Void> remove(CacheInfo cacheInfo, CacheType cacheType) {
         if (CacheType.COLLECTIONS.equals(cacheType)) {
-            this.paramInfoCacheList.remove(cacheInfo);
-        } else {
-            this.historyParamInfoCacheList.remove(cacheInfo);
+            this.collections.remove(cacheInfo.getId());
+            this.collectionIndex.remove(cacheInfo.getId());
+            return CompletableFuture.completedFuture(null);
+        }
+        return this.withHistory(history -> {
+            history.remove(cacheInfo.getId());
+            this.historyIndex.remove(cacheInfo.getId());
+            return null;
+        });
+    }
+
+    /**
+     * 清空缓存
+     *
+     * @return 历史在后台清空, 完成后刷新
+     */
+    public CompletableFuture<Void> clear(CacheType cacheType) {
+        if (CacheType.COLLECTIONS.equals(cacheType)) {
+            this.collections.clear();
+            this.collectionIndex.clear();
+            return CompletableFuture.completedFuture(null);
+        }
+        return this.withHistory(history -> {
+            history.clear();
+            this.historyIndex.clear();
+            return null;
+        });
+    }
+
+    /**
+     * 第一次使用时在后台打开日志文件
+     */
+    private CompletableFuture<HistoryJournal> history() {
+        if (this.historyOpening.compareAndSet(false, true)) {
+            try {
+                this.historyExecutor.execute(this::openHistory);
+            } catch (RejectedExecutionException e) {
+                this.history.complete(HistoryJournal.inMemory(this.historyMaxEntries));
+                this.historyIndexed.complete(null);
+            }
+        }
+        return this.history;
+    }
+
+    private void openHistory() {
+        Path file = Paths.get(PathManager.getConfigPath(), HISTORY_JOURNAL);
+        HistoryJournal history;
+        try {
+            history = HistoryJournal.open(file, this.historyMaxEntries, this.historyMaxBytes(), this.historyExecutor);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("open history journal {} failed, history will not be saved", file, e);
+            history = HistoryJournal.inMemory(this.historyMaxEntries);
+        }
+        this.history.complete(history);
+        this.indexHistory(history);
+    }
+
+    /**
+     * 在历史的线程中执行, 打开日志文件是第一个任务, 之后的任务不会等待
+     */
+    private <T> CompletableFuture<T> withHistory(Function<HistoryJournal, T> action) {
+        CompletableFuture<HistoryJournal> history = this.history();
+        try {
+            return CompletableFuture.supplyAsync(() -> action.apply(history.join()), this.historyExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 在后台顺序读取一遍日志文件建立索引, 期间新增的历史直接加入索引
+     */
+    private void indexHistory(HistoryJournal history) {
+        try {
+            DubboExecutorService.getInstance().execute(() -> {
+                try {
+                    history.readAll(this.historyIndex::add);
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.warn("index history failed, search will only find new history", e);
+                } finally {
+                    this.historyIndexed.complete(null);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("index history failed, search will only find new history", e);
+            this.historyIndexed.complete(null);
         }
+    }
+
+    /**
+     * 修改历史的上限后调用, 超过的记录立即淘汰
+     */
+    public void configureHistory() {
+        this.withHistory(history -> {
+            history.configure(this.historyMaxEntries, this.historyMaxBytes());
+            return null;
+        });
+    }
 
+    private long historyMaxBytes() {
+        return this.historyMaxMegabytes * 1024L * 1024L;
     }
 
     /**
@@ -140,6 +422,7 @@ public class DubboSetingState implements PersistentStateComponent<DubboSetingSta
     @Nullable
     @Override
     public DubboSetingState getState() {
+        this.paramInfoCacheList = new LinkedList<>(this.collections.oldestFirst());
         return this;
     }
 
@@ -152,6 +435,53 @@ public class DubboSetingState implements PersistentStateComponent<DubboSetingSta
     @Override
     public void loadState(@NotNull DubboSetingState state) {
         XmlSerializerUtil.copyBean(state, this);
+        this.collections.load(this.paramInfoCacheList);
+        this.collectionIndex.clear();
+        for (CacheInfo cacheInfo : this.collections.oldestFirst()) {
+            this.collectionIndex.add(cacheInfo.getId(), cacheInfo);
+        }
+        if (!this.historyParamInfoCacheList.isEmpty()) {
+            //迁移旧版本的历史
+            List<CacheInfo> legacy = new ArrayList<>(this.historyParamInfoCacheList);
+            legacy.sort(Comparator.comparing(CacheInfo::getDate, Comparator.nullsFirst(Comparator.naturalOrder())));
+            this.withHistory(history -> {
+                for (CacheInfo cacheInfo : legacy) {
+                    this.historyIndex.add(history.add(cacheInfo), cacheInfo);
+                }
+                return history.isPersistent();
+            }).whenComplete((persistent, throwable) -> {
+                //写入文件后才清空, 否则下次启动时重新迁移
+                if (Boolean.TRUE.equals(persistent)) {
+                    IntellijUtils.safelyInvokeLater(this.historyParamInfoCacheList::clear);
+                } else {
+                    LOGGER.warn("migrate legacy history failed, will retry on next start", throwable);
+                }
+            });
+        }
+        ReferenceCache.getInstance().configure(this.referenceCacheMaxSize, this.referenceIdleMinutes);
+        RateLimiters.getInstance().configure(this.getMaxRpsByAddress());
+    }
+
+    /**
+     * IDE 退出或插件卸载时, 等待排队的修改写入后关闭日志文件
+     */
+    @Override
+    public void dispose() {
+        try {
+            this.historyExecutor.execute(() -> {
+                HistoryJournal history = this.history.getNow(null);
+                if (history == null) {
+                    return;
+                }
+                try {
+                    history.close();
+                } catch (IOException e) {
+                    LOGGER.warn("close history journal failed", e);
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+        }
+        this.historyExecutor.shutdown();
     }
 
     public enum CacheType {
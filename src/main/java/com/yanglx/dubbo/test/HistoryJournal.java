@@ -0,0 +1,946 @@
+package com.yanglx.dubbo.test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.yanglx.dubbo.test.utils.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 历史记录的日志文件: 每行一条 json 记录, 添加和删除只追加一行, 不会重写整个文件.
+ * 内存中只保存 id, 名称和时间, 完整的记录在打开时按行的位置读取, 较长的参数压缩保存, 读取时才解压.
+ * 按条数和文件大小淘汰最旧的记录, 失效的行超过有效的行时在后台重写文件, 只复制有效的行.
+ * 内容相同的历史只保存一次, 再次执行时追加一行执行次数和耗时的统计
+ */
+public class HistoryJournal implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HistoryJournal.class);
+
+    /**
+     * 默认最多保存的条数
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 20_000;
+
+    /**
+     * 默认最多占用的空间(MB)
+     */
+    public static final int DEFAULT_MAX_MEGABYTES = 100;
+
+    private static final String OP_ADD = "add";
+
+    private static final String OP_REMOVE = "remove";
+
+    /**
+     * 再次执行内容相同的历史, 移动到最新的位置并更新统计
+     */
+    private static final String OP_HIT = "hit";
+
+    /**
+     * 只更新统计
+     */
+    private static final String OP_STATS = "stats";
+
+    /**
+     * 压缩保存的字段, 记录中保存在 "gzip" 对象下
+     */
+    private static final String[] COMPRESSED_FIELDS = {"paramObjJson", "methodTypeJson", "batchJson"};
+
+    private static final String COMPRESSED = "gzip";
+
+    /**
+     * 短于这个长度的字段不压缩, 压缩和 base64 的开销大于收益
+     */
+    private static final int MIN_COMPRESS_LENGTH = 256;
+
+    /**
+     * 失效的行超过这个数量并且超过有效的行时压缩
+     */
+    private static final int MIN_GARBAGE_TO_COMPACT = 64;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+
+    /**
+     * 只有 id, 名称和时间的记录. 写入文件失败的记录保存完整的内容
+     */
+    private final CacheInfoStore headers;
+
+    /**
+     * id -> 完整记录在文件中的位置
+     */
+    private final Map<String, Location> locations = new HashMap<>();
+
+    /**
+     * content hash -> id, 只包括写入文件的记录
+     */
+    private final Map<String, String> hashes = new HashMap<>();
+
+    /**
+     * 有统计行的记录数, 每条记录只有最后一个统计行有效
+     */
+    private int liveStats;
+
+    /**
+     * 有效记录占用的字节数
+     */
+    private long liveBytes;
+
+    /**
+     * 最多占用的字节数, 0 表示不限制
+     */
+    private long maxBytes;
+
+    private FileChannel channel;
+
+    /**
+     * 文件中的行数, 包括失效的行
+     */
+    private int lines;
+
+    /**
+     * 执行压缩, 为 null 时不压缩
+     */
+    private final Executor compactor;
+
+    /**
+     * 是否正在压缩
+     */
+    private boolean compacting;
+
+    /**
+     * 清空或关闭时增加, 压缩期间变化时放弃压缩的结果
+     */
+    private long generation;
+
+    private HistoryJournal(Path file, int maxEntries, long maxBytes, Executor compactor) {
+        this.file = file;
+        this.headers = new CacheInfoStore(maxEntries);
+        this.maxBytes = maxBytes;
+        this.compactor = compactor;
+    }
+
+    /**
+     * 打开日志文件, 不存在时创建. 文件末尾不完整的行会被截掉, 中间损坏的行跳过, 压缩时删除
+     *
+     * @param file       file
+     * @param maxEntries 最多保存的条数, 0 表示不限制
+     * @param maxBytes   最多占用的字节数, 0 表示不限制
+     * @param compactor  执行压缩的线程, 复制有效的行时不持有锁, 只在替换文件时加锁
+     * @return the history journal
+     * @throws IOException 读取文件失败
+     */
+    public static HistoryJournal open(Path file, int maxEntries, long maxBytes, Executor compactor) throws IOException {
+        HistoryJournal journal = new HistoryJournal(file, maxEntries, maxBytes, compactor);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        long valid = Files.exists(file) ? journal.replay() : 0;
+        journal.channel = openChannel(file);
+        journal.channel.truncate(valid);
+        journal.channel.position(valid);
+        journal.compactIfNeeded();
+        return journal;
+    }
+
+    /**
+     * 不写文件, 打开日志文件失败时使用
+     *
+     * @param maxEntries 最多保存的条数
+     * @return the history journal
+     */
+    public static HistoryJournal inMemory(int maxEntries) {
+        return new HistoryJournal(null, maxEntries, 0, null);
+    }
+
+    /**
+     * 修改保存的上限, 超过的记录立即淘汰
+     *
+     * @param maxEntries 最多保存的条数, 0 表示不限制
+     * @param maxBytes   最多占用的字节数, 0 表示不限制
+     */
+    public synchronized void configure(int maxEntries, long maxBytes) {
+        this.maxBytes = maxBytes;
+        for (CacheInfo evicted : this.headers.setMaxSize(maxEntries)) {
+            this.forget(evicted.getId());
+        }
+        this.evictOverSize();
+        this.compactIfNeeded();
+    }
+
+    /**
+     * 添加一条历史, 已有内容相同的历史时只增加执行次数并移动到最新的位置
+     *
+     * @param cacheInfo cache info
+     * @return 保存的历史的 id, 合并时是已有历史的 id
+     */
+    public synchronized String add(CacheInfo cacheInfo) {
+        String hash = cacheInfo.contentHash();
+        String existingId = this.hashes.get(hash);
+        CacheInfo existing = existingId == null ? null : this.headers.get(existingId);
+        if (existing != null) {
+            existing.setHits(existing.getHits() == null ? 2 : existing.getHits() + 1);
+            existing.setLastRun(cacheInfo.getDate() == null ? new Date() : cacheInfo.getDate());
+            this.headers.add(existing);
+            this.appendStats(OP_HIT, existing);
+            this.compactIfNeeded();
+            return existing.getId();
+        }
+        CacheInfo stored = cacheInfo;
+        this.forget(cacheInfo.getId());
+        if (this.channel != null) {
+            try {
+                ObjectNode record = header(OP_ADD, cacheInfo);
+                record.put("hash", hash);
+                record.set("entry", compress(Json.toJson(cacheInfo)));
+                Location location = this.append(record);
+                this.remember(location);
+                stored = location.header;
+            } catch (IOException e) {
+                LOGGER.warn("write history journal {} failed", this.file, e);
+            }
+        }
+        for (CacheInfo evicted : this.headers.add(stored)) {
+            this.forget(evicted.getId());
+        }
+        this.evictOverSize();
+        this.compactIfNeeded();
+        return cacheInfo.getId();
+    }
+
+    /**
+     * 记录一次执行的耗时
+     *
+     * @param id     id
+     * @param millis latency(ms)
+     */
+    public synchronized void recordLatency(String id, long millis) {
+        CacheInfo header = this.headers.get(id);
+        if (header == null) {
+            return;
+        }
+        header.recordLatency(millis);
+        this.appendStats(OP_STATS, header);
+        this.compactIfNeeded();
+    }
+
+    /**
+     * 按 id 读取完整的记录
+     *
+     * @param id id
+     * @return 不存在时返回 null
+     */
+    public synchronized CacheInfo get(String id) {
+        CacheInfo header = this.headers.get(id);
+        Location location = this.locations.get(id);
+        if (header == null || location == null || this.channel == null) {
+            return header;
+        }
+        try {
+            ByteBuffer line = ByteBuffer.allocate(location.length);
+            while (line.hasRemaining()) {
+                if (this.channel.read(line, location.offset + line.position()) < 0) {
+                    throw new IOException("unexpected end of history journal at " + location.offset);
+                }
+            }
+            CacheInfo cacheInfo = readEntry(line.array());
+            copyStats(header, cacheInfo);
+            return cacheInfo;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("read history journal {} failed", this.file, e);
+            return header;
+        }
+    }
+
+    /**
+     * 顺序读取一遍文件, 读取每条有效记录的完整内容, 用于建立索引. 不持有锁, 读取期间的修改不包括在内
+     *
+     * @param consumer id, 完整的记录
+     * @throws IOException 读取文件失败
+     */
+    public void readAll(BiConsumer<String, CacheInfo> consumer) throws IOException {
+        Map<Long, String> live = new HashMap<>();
+        List<CacheInfo> unwritten = new ArrayList<>();
+        long end;
+        InputStream in;
+        synchronized (this) {
+            for (CacheInfo header : this.headers.newestFirst()) {
+                Location location = this.locations.get(header.getId());
+                if (location == null) {
+                    unwritten.add(header);
+                } else {
+                    live.put(location.offset, header.getId());
+                }
+            }
+            end = this.channel == null ? 0 : this.channel.position();
+            //在锁中打开, 压缩替换文件后仍然读取快照对应的文件
+            in = live.isEmpty() ? null : Files.newInputStream(this.file);
+        }
+        for (CacheInfo header : unwritten) {
+            consumer.accept(header.getId(), header);
+        }
+        if (in == null) {
+            return;
+        }
+        try (InputStream input = in) {
+            readLines(input, end, (bytes, offset) -> {
+                String id = live.get(offset);
+                if (id == null) {
+                    return;
+                }
+                try {
+                    consumer.accept(id, readEntry(bytes));
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.warn("read history journal {} failed at {}", this.file, offset, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 是否写入文件, 打开文件失败时只保存在内存中
+     */
+    public synchronized boolean isPersistent() {
+        return this.channel != null;
+    }
+
+    /**
+     * 从新到旧的历史, 只有 id, 名称和时间
+     *
+     * @return the list
+     */
+    public synchronized List<CacheInfo> newestFirst() {
+        return this.headers.newestFirst();
+    }
+
+    public synchronized void remove(String id) {
+        if (this.headers.remove(id) == null || !this.forget(id)) {
+            //没有写入文件的记录
+            return;
+        }
+        CacheInfo removed = new CacheInfo();
+        removed.setId(id);
+        try {
+            this.append(header(OP_REMOVE, removed));
+        } catch (IOException e) {
+            LOGGER.warn("write history journal {} failed", this.file, e);
+        }
+        this.compactIfNeeded();
+    }
+
+    public synchronized void clear() {
+        this.generation++;
+        this.headers.clear();
+        this.locations.clear();
+        this.hashes.clear();
+        this.liveBytes = 0;
+        this.liveStats = 0;
+        this.lines = 0;
+        if (this.channel == null) {
+            return;
+        }
+        try {
+            this.channel.truncate(0);
+            this.channel.position(0);
+        } catch (IOException e) {
+            LOGGER.warn("clear history journal {} failed", this.file, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.generation++;
+        if (this.channel != null) {
+            this.channel.close();
+            this.channel = null;
+        }
+    }
+
+    /**
+     * 读取文件中的所有行, 返回最后一个完整行的结束位置. 淘汰的记录没有删除行, 重新打开时按同样的上限淘汰
+     */
+    private long replay() throws IOException {
+        try (InputStream in = Files.newInputStream(this.file)) {
+            return readLines(in, Long.MAX_VALUE, this::replay);
+        }
+    }
+
+    /**
+     * 按行读取到 limit 为止, 返回最后一个完整行的结束位置, 之后不完整的行不处理
+     *
+     * @param handler 不包括换行符的行, 行的开始位置
+     */
+    private long readLines(InputStream in, long limit, ObjLongConsumer<byte[]> handler) throws IOException {
+        long offset = 0;
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        ByteArrayOutputStream partial = new ByteArrayOutputStream();
+        int read;
+        while (offset < limit && (read = in.read(buffer)) != -1) {
+            int start = 0;
+            for (int i = 0; i < read && offset < limit; i++) {
+                if (buffer[i] != '\n') {
+                    continue;
+                }
+                byte[] bytes;
+                if (partial.size() == 0) {
+                    bytes = Arrays.copyOfRange(buffer, start, i);
+                } else {
+                    partial.write(buffer, start, i - start);
+                    bytes = partial.toByteArray();
+                    partial.reset();
+                }
+                handler.accept(bytes, offset);
+                offset += bytes.length + 1;
+                start = i + 1;
+            }
+            partial.write(buffer, start, read - start);
+        }
+        if (partial.size() > 0 && offset < limit) {
+            LOGGER.warn("history journal {} ends with an incomplete line at {}, truncated", this.file, offset);
+        }
+        return offset;
+    }
+
+    /**
+     * 解析 add 行中的完整记录
+     */
+    private static CacheInfo readEntry(byte[] line) throws IOException {
+        ObjectNode entry = (ObjectNode) Json.mapper().readTree(line).get("entry");
+        return Json.mapper().treeToValue(decompress(entry), CacheInfo.class);
+    }
+
+    /**
+     * 重放一个完整的行, 损坏的行作为失效的行跳过
+     */
+    private void replay(byte[] bytes, long offset) {
+        this.lines++;
+        Location location;
+        try {
+            location = this.replayLine(bytes, offset);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("history journal {} is corrupted at {}, line skipped", this.file, offset, e);
+            return;
+        }
+        if (location != null) {
+            this.forget(location.header.getId());
+            this.remember(location);
+            for (CacheInfo evicted : this.headers.add(location.header)) {
+                this.forget(evicted.getId());
+            }
+            this.evictOverSize();
+        }
+    }
+
+    /**
+     * 只解析一行的头部, 跳过完整的记录
+     *
+     * @return add 记录的位置, remove 记录返回 null
+     */
+    private Location replayLine(byte[] bytes, long offset) throws IOException {
+        String op = null;
+        String hash = null;
+        CacheInfo header = new CacheInfo();
+        try (JsonParser parser = Json.mapper().getFactory().createParser(bytes)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("not a json object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "op":
+                        op = parser.getText();
+                        break;
+                    case "id":
+                        header.setId(parser.getText());
+                        break;
+                    case "name":
+                        header.setName(parser.getText());
+                        break;
+                    case "date":
+                        header.setDate(new Date(parser.getLongValue()));
+                        break;
+                    case "hash":
+                        hash = parser.getText();
+                        break;
+                    case "hits":
+                        header.setHits(parser.getIntValue());
+                        break;
+                    case "lastRun":
+                        header.setLastRun(new Date(parser.getLongValue()));
+                        break;
+                    case "latencyCount":
+                        header.setLatencyCount(parser.getIntValue());
+                        break;
+                    case "latencyMin":
+                        header.setLatencyMin(parser.getLongValue());
+                        break;
+                    case "latencyMax":
+                        header.setLatencyMax(parser.getLongValue());
+                        break;
+                    case "latencyTotal":
+                        header.setLatencyTotal(parser.getLongValue());
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+        if (header.getId() == null) {
+            throw new IOException("missing id");
+        }
+        if (OP_REMOVE.equals(op)) {
+            this.headers.remove(header.getId());
+            this.forget(header.getId());
+            return null;
+        }
+        if (OP_HIT.equals(op) || OP_STATS.equals(op)) {
+            CacheInfo existing = this.headers.get(header.getId());
+            Location location = this.locations.get(header.getId());
+            if (existing != null && location != null) {
+                copyStats(header, existing);
+                if (OP_HIT.equals(op)) {
+                    this.headers.add(existing);
+                }
+                this.markStats(location, offset, bytes.length);
+            }
+            return null;
+        }
+        return new Location(offset, bytes.length, header, hash);
+    }
+
+    /**
+     * 超过占用空间上限时淘汰最旧的记录, 至少保留最新的一条
+     */
+    private void evictOverSize() {
+        while (this.maxBytes > 0 && this.liveBytes > this.maxBytes && this.headers.size() > 1) {
+            this.forget(this.headers.removeOldest().getId());
+        }
+    }
+
+    private void remember(Location location) {
+        this.locations.put(location.header.getId(), location);
+        this.liveBytes += location.length + 1L;
+        if (location.hash != null) {
+            this.hashes.put(location.hash, location.header.getId());
+        }
+        if (location.hasStats()) {
+            this.liveStats++;
+        }
+    }
+
+    /**
+     * 记录的行变为失效的行
+     *
+     * @return 记录是否在文件中
+     */
+    private boolean forget(String id) {
+        Location location = this.locations.remove(id);
+        if (location == null) {
+            return false;
+        }
+        this.liveBytes -= location.length + 1L;
+        if (location.hash != null && id.equals(this.hashes.get(location.hash))) {
+            this.hashes.remove(location.hash);
+        }
+        if (location.hasStats()) {
+            this.liveStats--;
+        }
+        return true;
+    }
+
+    /**
+     * 追加统计行, 之前的统计行变为失效的行
+     */
+    private void appendStats(String op, CacheInfo header) {
+        Location location = this.locations.get(header.getId());
+        if (location == null) {
+            return;
+        }
+        try {
+            Location line = this.append(stats(op, header));
+            this.markStats(location, line.offset, line.length);
+        } catch (IOException e) {
+            LOGGER.warn("write history journal {} failed", this.file, e);
+        }
+    }
+
+    /**
+     * 记录最新的统计行, 之前的统计行变为失效的行
+     */
+    private void markStats(Location location, long offset, int length) {
+        if (!location.hasStats()) {
+            this.liveStats++;
+        }
+        location.statsOffset = offset;
+        location.statsLength = length;
+    }
+
+    private static ObjectNode stats(String op, CacheInfo header) {
+        ObjectNode record = Json.mapper().createObjectNode();
+        record.put("op", op);
+        record.put("id", header.getId());
+        if (header.getHits() != null) {
+            record.put("hits", header.getHits());
+        }
+        if (header.getLastRun() != null) {
+            record.put("lastRun", header.getLastRun().getTime());
+        }
+        if (header.getLatencyCount() != null) {
+            record.put("latencyCount", header.getLatencyCount());
+            record.put("latencyMin", header.getLatencyMin());
+            record.put("latencyMax", header.getLatencyMax());
+            record.put("latencyTotal", header.getLatencyTotal());
+        }
+        return record;
+    }
+
+    private static void copyStats(CacheInfo from, CacheInfo to) {
+        to.setHits(from.getHits());
+        to.setLastRun(from.getLastRun());
+        to.setLatencyCount(from.getLatencyCount());
+        to.setLatencyMin(from.getLatencyMin());
+        to.setLatencyMax(from.getLatencyMax());
+        to.setLatencyTotal(from.getLatencyTotal());
+    }
+
+    private static ObjectNode header(String op, CacheInfo cacheInfo) {
+        ObjectNode record = Json.mapper().createObjectNode();
+        record.put("op", op);
+        record.put("id", cacheInfo.getId());
+        if (OP_ADD.equals(op)) {
+            record.put("name", cacheInfo.getName());
+            record.put("date", cacheInfo.getDate() == null ? System.currentTimeMillis() : cacheInfo.getDate().getTime());
+        }
+        return record;
+    }
+
+    /**
+     * 较长的 json 字段 gzip 后 base64 保存
+     */
+    private static JsonNode compress(JsonNode entry) throws IOException {
+        ObjectNode node = (ObjectNode) entry;
+        ObjectNode compressed = null;
+        for (String field : COMPRESSED_FIELDS) {
+            JsonNode value = node.get(field);
+            if (value == null || !value.isTextual() || value.asText().length() < MIN_COMPRESS_LENGTH) {
+                continue;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (OutputStream out = new GZIPOutputStream(bytes)) {
+                out.write(value.asText().getBytes(StandardCharsets.UTF_8));
+            }
+            if (compressed == null) {
+                compressed = node.putObject(COMPRESSED);
+            }
+            compressed.put(field, Base64.getEncoder().encodeToString(bytes.toByteArray()));
+            node.remove(field);
+        }
+        return node;
+    }
+
+    private static JsonNode decompress(ObjectNode entry) throws IOException {
+        JsonNode compressed = entry.remove(COMPRESSED);
+        if (compressed == null) {
+            return entry;
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> it = compressed.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            byte[] bytes = Base64.getDecoder().decode(field.getValue().asText());
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                entry.put(field.getKey(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entry;
+    }
+
+    private Location append(ObjectNode record) throws IOException {
+        if (this.channel == null) {
+            throw new IOException("history journal is closed");
+        }
+        byte[] bytes = Json.mapper().writeValueAsBytes(record);
+        long offset = this.channel.position();
+        writeLine(this.channel, bytes);
+        this.lines++;
+        CacheInfo header = new CacheInfo();
+        header.setId(record.get("id").asText());
+        if (record.has("name")) {
+            header.setName(record.get("name").asText(null));
+            header.setDate(new Date(record.get("date").asLong()));
+        }
+        return new Location(offset, bytes.length, header, record.has("hash") ? record.get("hash").asText() : null);
+    }
+
+    private static void writeLine(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 1);
+        buffer.put(bytes).put((byte) '\n').flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * 失效的行较多时在后台压缩, 加锁时只记录有效行的位置
+     */
+    private void compactIfNeeded() {
+        int garbage = this.lines - this.locations.size() - this.liveStats;
+        if (this.channel == null || this.compactor == null || this.compacting
+                || garbage < MIN_GARBAGE_TO_COMPACT || garbage < this.locations.size()) {
+            return;
+        }
+        List<Location> live = new ArrayList<>(this.locations.size());
+        for (CacheInfo header : this.headers.oldestFirst()) {
+            Location location = this.locations.get(header.getId());
+            if (location != null) {
+                live.add(location.copy());
+            }
+        }
+        Snapshot snapshot;
+        try {
+            snapshot = new Snapshot(this.generation, this.channel, this.channel.position(), this.lines, live);
+        } catch (IOException e) {
+            LOGGER.warn("compact history journal {} failed", this.file, e);
+            return;
+        }
+        this.compacting = true;
+        try {
+            this.compactor.execute(() -> this.compact(snapshot));
+        } catch (RejectedExecutionException e) {
+            this.compacting = false;
+        }
+    }
+
+    /**
+     * 按从旧到新的顺序复制快照中有效的行到新文件, 不持有锁, 复制期间追加的行在替换文件时再复制
+     */
+    private void compact(Snapshot snapshot) {
+        Path temp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+        try {
+            Map<String, Location> moved = new HashMap<>();
+            int copiedLines = 0;
+            long copiedEnd;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Location location : snapshot.live) {
+                    Location copy = new Location(out.position(), location.length, location.header, location.hash);
+                    transfer(snapshot.channel, location.offset, location.length + 1L, out);
+                    copiedLines++;
+                    if (location.hasStats()) {
+                        copy.statsOffset = out.position();
+                        copy.statsLength = location.statsLength;
+                        transfer(snapshot.channel, location.statsOffset, location.statsLength + 1L, out);
+                        copiedLines++;
+                    }
+                    moved.put(location.header.getId(), copy);
+                }
+                out.force(false);
+                copiedEnd = out.position();
+            }
+            synchronized (this) {
+                if (snapshot.generation == this.generation && this.channel == snapshot.channel) {
+                    this.swap(snapshot, temp, moved, copiedLines, copiedEnd);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            //清空或关闭时读取原文件失败是正常的
+            synchronized (this) {
+                if (snapshot.generation == this.generation) {
+                    LOGGER.warn("compact history journal {} failed", this.file, e);
+                }
+            }
+        } finally {
+            synchronized (this) {
+                this.compacting = false;
+            }
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 复制快照之后追加的行, 替换原文件并更新所有记录的位置
+     */
+    private void swap(Snapshot snapshot, Path temp, Map<String, Location> moved, int copiedLines, long copiedEnd)
+            throws IOException {
+        long end = this.channel.position();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            out.position(copiedEnd);
+            transfer(this.channel, snapshot.end, end - snapshot.end, out);
+            out.force(false);
+        }
+        //快照之前的行在新文件中的位置来自复制的结果, 之后的行整体平移
+        long shift = copiedEnd - snapshot.end;
+        Map<String, Location> relocated = new HashMap<>();
+        for (Location location : this.locations.values()) {
+            Location copy = moved.get(location.header.getId());
+            Location target;
+            if (location.offset >= snapshot.end) {
+                target = new Location(location.offset + shift, location.length, location.header, location.hash);
+            } else if (copy != null) {
+                target = new Location(copy.offset, location.length, location.header, location.hash);
+            } else {
+                throw new IOException("history entry " + location.header.getId() + " is missing from the compacted journal");
+            }
+            if (location.statsOffset >= snapshot.end) {
+                target.statsOffset = location.statsOffset + shift;
+                target.statsLength = location.statsLength;
+            } else if (location.hasStats()) {
+                if (copy == null || !copy.hasStats()) {
+                    throw new IOException("history stats " + location.header.getId() + " are missing from the compacted journal");
+                }
+                target.statsOffset = copy.statsOffset;
+                target.statsLength = copy.statsLength;
+            }
+            relocated.put(location.header.getId(), target);
+        }
+        this.channel.close();
+        this.channel = null;
+        boolean replaced = false;
+        try {
+            Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            replaced = true;
+        } catch (IOException e) {
+            LOGGER.warn("replace history journal {} failed", this.file, e);
+        }
+        //替换失败时文件没有变化, 继续使用原来的位置
+        if (replaced) {
+            this.locations.clear();
+            this.locations.putAll(relocated);
+            this.lines = copiedLines + this.lines - snapshot.lines;
+            this.liveStats = 0;
+            for (Location location : relocated.values()) {
+                if (location.hasStats()) {
+                    this.liveStats++;
+                }
+            }
+        }
+        this.channel = openChannel(this.file);
+        this.channel.position(this.channel.size());
+    }
+
+    /**
+     * transferTo 可能只复制一部分, 循环直到复制完
+     */
+    private static void transfer(FileChannel source, long position, long count, FileChannel target) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            long transferred = source.transferTo(position + count - remaining, remaining, target);
+            if (transferred <= 0) {
+                throw new IOException("unexpected end of history journal at " + (position + count - remaining));
+            }
+            remaining -= transferred;
+        }
+    }
+
+    private static FileChannel openChannel(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 一条 add 记录所在的行
+     */
+    private static class Location {
+
+        private final long offset;
+
+        /**
+         * 不包括换行符
+         */
+        private final int length;
+
+        private final CacheInfo header;
+
+        /**
+         * Content hash, 旧版本写入的记录没有
+         */
+        private final String hash;
+
+        /**
+         * 最新的统计行的位置, 没有统计行时为 -1
+         */
+        private long statsOffset = -1;
+
+        private int statsLength;
+
+        Location(long offset, int length, CacheInfo header, String hash) {
+            this.offset = offset;
+            this.length = length;
+            this.header = header;
+            this.hash = hash;
+        }
+
+        boolean hasStats() {
+            return this.statsOffset >= 0;
+        }
+
+        Location copy() {
+            Location copy = new Location(this.offset, this.length, this.header, this.hash);
+            copy.statsOffset = this.statsOffset;
+            copy.statsLength = this.statsLength;
+            return copy;
+        }
+    }
+
+    /**
+     * 开始压缩时的有效行
+     */
+    private static class Snapshot {
+
+        private final long generation;
+
+        private final FileChannel channel;
+
+        /**
+         * 快照时文件的长度
+         */
+        private final long end;
+
+        /**
+         * 快照时的行数
+         */
+        private final int lines;
+
+        /**
+         * 从旧到新的有效记录
+         */
+        private final List<Location> live;
+
+        Snapshot(long generation, FileChannel channel, long end, int lines, List<Location> live) {
+            this.generation = generation;
+            this.channel = channel;
+            this.end = end;
+            this.lines = lines;
+            this.live = live;
+        }
+    }
+}
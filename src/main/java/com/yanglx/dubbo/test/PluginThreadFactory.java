@@ -0,0 +1,32 @@
+package com.yanglx.dubbo.test;
+
+import org.apache.dubbo.common.utils.NamedThreadFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>Description: 插件的守护线程, context classloader 设为插件的 classloader.
+ * dubbo 的 SPI 和创建引用需要插件的 classloader, 和 DubboPanelToolWindow 中一样</p>
+ *
+ * @since 1.3.2
+ */
+public class PluginThreadFactory implements ThreadFactory {
+
+    private static final ClassLoader PLUGIN_CLASS_LOADER = PluginThreadFactory.class.getClassLoader();
+
+    private final ThreadFactory namedThreadFactory;
+
+    /**
+     * @param name 线程名, 会加上插件名作为前缀
+     */
+    public PluginThreadFactory(String name) {
+        this.namedThreadFactory = new NamedThreadFactory(PluginConstants.PLUGIN_NAME + "-" + name, true);
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        Thread thread = this.namedThreadFactory.newThread(r);
+        thread.setContextClassLoader(PLUGIN_CLASS_LOADER);
+        return thread;
+    }
+}
@@ -0,0 +1,169 @@
+package com.yanglx.dubbo.test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * 收藏和历史的倒排索引: 按接口名, 方法名, 地址, 名称和参数中的内容分词, 词 -> id.
+ * 添加和删除时增量维护, 查询时每个词按前缀匹配, 多个词取交集
+ */
+public class SearchIndex {
+
+    /**
+     * 按非字母数字切分
+     */
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * 驼峰命名再切分一次, OrderService 也能用 service 搜到
+     */
+    private static final Pattern CAMEL_CASE = Pattern.compile("(?<=[\\p{Ll}\\p{N}])(?=\\p{Lu})");
+
+    /**
+     * 词 -> id, 有序, 前缀查询是一段连续的范围
+     */
+    private final NavigableMap<String, Set<String>> postings = new TreeMap<>();
+
+    /**
+     * id -> 词, 删除和更新时使用
+     */
+    private final Map<String, Set<String>> documents = new HashMap<>();
+
+    /**
+     * 添加或更新一条记录的索引
+     *
+     * @param id        保存的 id, 历史合并时和 cacheInfo 的 id 不同
+     * @param cacheInfo cache info
+     */
+    public synchronized void add(String id, CacheInfo cacheInfo) {
+        if (id == null || cacheInfo == null) {
+            return;
+        }
+        this.remove(id);
+        Set<String> tokens = new HashSet<>();
+        for (String field : new String[]{cacheInfo.getName(), cacheInfo.getInterfaceName(), cacheInfo.getMethodName(),
+                cacheInfo.getAddress(), cacheInfo.getGroup(), cacheInfo.getVersion(), cacheInfo.getParamObjJson()}) {
+            tokenize(field, true, tokens);
+        }
+        for (String token : tokens) {
+            this.postings.computeIfAbsent(token, key -> new HashSet<>()).add(id);
+        }
+        this.documents.put(id, tokens);
+    }
+
+    public synchronized void remove(String id) {
+        Set<String> tokens = id == null ? null : this.documents.remove(id);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Set<String> ids = this.postings.get(token);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                this.postings.remove(token);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        this.postings.clear();
+        this.documents.clear();
+    }
+
+    public synchronized int size() {
+        return this.documents.size();
+    }
+
+    /**
+     * 只保留仍然存在的记录, 清理淘汰后留下的索引
+     *
+     * @param liveIds 仍然存在的 id
+     */
+    public synchronized void retainAll(Collection<String> liveIds) {
+        for (String id : new ArrayList<>(this.documents.keySet())) {
+            if (!liveIds.contains(id)) {
+                this.remove(id);
+            }
+        }
+    }
+
+    /**
+     * 查询, 每个词都要匹配某个词的前缀
+     *
+     * @param query 空格或符号分隔的关键字
+     * @return 匹配的 id, 没有关键字时返回 null
+     */
+    public synchronized Set<String> search(String query) {
+        Set<String> terms = new HashSet<>();
+        tokenize(query, false, terms);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        //只展开匹配最少的词, 其他词在候选记录自己的词中检查
+        String rarest = null;
+        long rarestCount = Long.MAX_VALUE;
+        for (String term : terms) {
+            long count = 0;
+            for (Set<String> posting : this.prefixRange(term).values()) {
+                count += posting.size();
+            }
+            if (count < rarestCount) {
+                rarest = term;
+                rarestCount = count;
+            }
+        }
+        Set<String> result = new HashSet<>();
+        for (Set<String> posting : this.prefixRange(rarest).values()) {
+            result.addAll(posting);
+        }
+        terms.remove(rarest);
+        if (!terms.isEmpty()) {
+            result.removeIf(id -> !matchesAll(this.documents.get(id), terms));
+        }
+        return result;
+    }
+
+    private NavigableMap<String, Set<String>> prefixRange(String prefix) {
+        return this.postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static boolean matchesAll(Set<String> tokens, Set<String> terms) {
+        for (String term : terms) {
+            boolean matched = false;
+            for (String token : tokens) {
+                if (token.startsWith(term)) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void tokenize(String text, boolean splitCamelCase, Set<String> tokens) {
+        if (text == null) {
+            return;
+        }
+        for (String word : SEPARATOR.split(text)) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            tokens.add(word.toLowerCase(Locale.ROOT));
+            if (splitCamelCase) {
+                for (String part : CAMEL_CASE.split(word)) {
+                    tokens.add(part.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+    }
+}
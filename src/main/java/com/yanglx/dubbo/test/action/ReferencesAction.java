@@ -0,0 +1,25 @@
+package com.yanglx.dubbo.test.action;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.yanglx.dubbo.test.ui.ReferencesDialog;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 查看缓存的引用
+ */
+public class ReferencesAction extends AnAction {
+
+    public ReferencesAction() {
+        super("References", "Show live dubbo references", AllIcons.Nodes.DataTables);
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        if (e.getProject() == null) {
+            return;
+        }
+        new ReferencesDialog(e.getProject()).show();
+    }
+}
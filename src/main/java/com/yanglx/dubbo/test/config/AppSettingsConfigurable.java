@@ -5,6 +5,8 @@ import com.intellij.ui.tabs.TabInfo;
 import com.yanglx.dubbo.test.CacheInfo;
 import com.yanglx.dubbo.test.DubboSetingState;
 import com.yanglx.dubbo.test.PluginConstants;
+import com.yanglx.dubbo.test.dubbo.RateLimiters;
+import com.yanglx.dubbo.test.dubbo.ReferenceCache;
 import com.yanglx.dubbo.test.ui.AppSettingsComponent;
 import com.yanglx.dubbo.test.ui.MyConfigurableDubboSettings;
 import com.yanglx.dubbo.test.ui.Tab;
@@ -40,7 +42,15 @@ import javax.swing.JComponent;
 
     @Override
     public boolean isModified() {
-        return mySettingsComponent.isModified();
+        DubboSetingState settings = DubboSetingState.getInstance();
+        return mySettingsComponent.isModified()
+                || settings.referenceCacheMaxSize != mySettingsComponent.getReferenceCacheMaxSize()
+                || settings.referenceIdleMinutes != mySettingsComponent.getReferenceIdleMinutes()
+                || settings.defaultTimeout != mySettingsComponent.getDefaultTimeout()
+                || settings.abortErrorRate != mySettingsComponent.getAbortErrorRate()
+                || settings.abortTimeoutRate != mySettingsComponent.getAbortTimeoutRate()
+                || settings.historyMaxEntries != mySettingsComponent.getHistoryMaxEntries()
+                || settings.historyMaxMegabytes != mySettingsComponent.getHistoryMaxMegabytes();
     }
 
     @Override
@@ -54,9 +64,20 @@ import javax.swing.JComponent;
             cacheInfo.setAddress(config.getProcessedAddress());
             cacheInfo.setGroup(config.getGroup());
             cacheInfo.setVersion(config.getVersion());
+            cacheInfo.setMaxRps(config.getMaxRps());
             return cacheInfo;
         }).collect(Collectors.toList());
         settings.setDubboConfigs(collect);
+        settings.referenceCacheMaxSize = mySettingsComponent.getReferenceCacheMaxSize();
+        settings.referenceIdleMinutes = mySettingsComponent.getReferenceIdleMinutes();
+        settings.defaultTimeout = mySettingsComponent.getDefaultTimeout();
+        settings.abortErrorRate = mySettingsComponent.getAbortErrorRate();
+        settings.abortTimeoutRate = mySettingsComponent.getAbortTimeoutRate();
+        settings.historyMaxEntries = mySettingsComponent.getHistoryMaxEntries();
+        settings.historyMaxMegabytes = mySettingsComponent.getHistoryMaxMegabytes();
+        settings.configureHistory();
+        ReferenceCache.getInstance().configure(settings.referenceCacheMaxSize, settings.referenceIdleMinutes);
+        RateLimiters.getInstance().configure(settings.getMaxRpsByAddress());
 
         //刷新下拉
         TabInfo selectedInfo = TabBar.getSelectionTabInfo();
@@ -74,8 +95,16 @@ import javax.swing.JComponent;
         List<MyConfigurableDubboSettings> collect = dubboConfigs.stream().map(cacheInfo -> {
             MyConfigurableDubboSettings config = new MyConfigurableDubboSettings();
             config.setConfig(cacheInfo.getName(),cacheInfo.getAddress(), cacheInfo.getVersion(), cacheInfo.getGroup());
+            config.setMaxRps(cacheInfo.getMaxRps());
             return config;
         }).collect(Collectors.toList());
         mySettingsComponent.reset(collect);
+        mySettingsComponent.setReferenceCacheMaxSize(settings.referenceCacheMaxSize);
+        mySettingsComponent.setReferenceIdleMinutes(settings.referenceIdleMinutes);
+        mySettingsComponent.setDefaultTimeout(settings.defaultTimeout);
+        mySettingsComponent.setAbortErrorRate(settings.abortErrorRate);
+        mySettingsComponent.setAbortTimeoutRate(settings.abortTimeoutRate);
+        mySettingsComponent.setHistoryMaxEntries(settings.historyMaxEntries);
+        mySettingsComponent.setHistoryMaxMegabytes(settings.historyMaxMegabytes);
     }
 }
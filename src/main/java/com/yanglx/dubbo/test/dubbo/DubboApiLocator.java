@@ -1,7 +1,6 @@
 package com.yanglx.dubbo.test.dubbo;
 
 
-import com.google.common.collect.Lists;
 import com.yanglx.dubbo.test.PluginConstants;
 import com.yanglx.dubbo.test.common.AddressTypeEnum;
 import com.yanglx.dubbo.test.utils.Json;
@@ -10,13 +9,15 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.dubbo.config.ApplicationConfig;
 import org.apache.dubbo.config.ReferenceConfig;
 import org.apache.dubbo.config.RegistryConfig;
-import org.apache.dubbo.config.utils.SimpleReferenceCache.KeyGenerator;
-import org.apache.dubbo.config.utils.SimpleReferenceCache;
 import org.apache.dubbo.rpc.service.GenericService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * <p>Description: </p>
@@ -34,30 +35,15 @@ public class DubboApiLocator {
      */
     private static final ApplicationConfig application = new ApplicationConfig(PluginConstants.PLUGIN_NAME);
     private static final Logger LOGGER = LoggerFactory.getLogger(DubboApiLocator.class);
-    private static final String CACHE_NAME = PluginConstants.PLUGIN_NAME;
-
     /**
-     * change key when dubboTest config changed
+     * reference cache
      */
-    private static final KeyGenerator generator = (referenceConfig) -> {
-        // interfaceName
-        String interfaceName = referenceConfig.getInterface();
-        if (StringUtils.isBlank(interfaceName)) {
-            Class<?> clazz = referenceConfig.getInterfaceClass();
-            interfaceName = clazz.getName();
-        }
-        if (StringUtils.isBlank(interfaceName)) {
-            throw new IllegalArgumentException("No interface info in ReferenceConfig" + referenceConfig);
-        }
-
-        // get other unique param
-        String group = StringUtils.defaultString(referenceConfig.getGroup());
-        String version = StringUtils.defaultString(referenceConfig.getVersion());
-        String url = StringUtils.defaultString(referenceConfig.getUrl());
+    private static final ReferenceCache referenceCache = ReferenceCache.getInstance();
 
-        List<String> uniqueParams = Lists.newArrayList(interfaceName, group, version, url);
-        return String.join("_", uniqueParams);
-    };
+    /**
+     * 预热中的引用, 避免重复提交
+     */
+    private static final Set<String> warmingKeys = ConcurrentHashMap.newKeySet();
 
     static {
         application.setQosEnable(false);
@@ -75,25 +61,159 @@ public class DubboApiLocator {
             LOGGER.debug("invoke method {}", Json.stringify(dubboMethodEntity));
         }
 
+        if (isBlankEntity(dubboMethodEntity)) {
+            return "";
+        }
+        return this.prepare(dubboMethodEntity).invoke();
+    }
+
+    /**
+     * 解析一次 dubboMethodEntity, 返回可重复使用的调用句柄.
+     * 会在当前线程查找或创建引用, 不要在 EDT 中调用
+     *
+     * @param dubboMethodEntity dubbo method entity
+     * @return the prepared invocation
+     * @since 1.3.2
+     */
+    public PreparedInvocation prepare(DubboMethodEntity dubboMethodEntity) {
+        if (isBlankEntity(dubboMethodEntity)) {
+            throw new IllegalArgumentException("address, interfaceName and methodName are required");
+        }
+        DubboMethodEntity snapshot = dubboMethodEntity.copy();
+        String key = getReferenceKey(snapshot);
+        return new PreparedInvocation(referenceCache, key, () -> this.getReferenceConfig(snapshot), snapshot);
+    }
+
+    /**
+     * 异步调用, 基于 {@link GenericService#$invokeAsync}, 调用期间不占用线程.
+     * 引用的查找或创建可能会连接注册中心, 所以放到 executor 中执行
+     *
+     * @param dubboMethodEntity dubbo method entity
+     * @param executor          executor for reference lookup
+     * @return the completable future
+     * @since 1.3.2
+     */
+    public CompletableFuture<Object> invokeAsync(DubboMethodEntity dubboMethodEntity, Executor executor) {
+        return this.invokeAsync(dubboMethodEntity, executor, new InvocationTiming());
+    }
+
+    /**
+     * 异步调用, 并记录各阶段耗时.
+     * 取消返回的 future 时, 如果还在查找引用则不再发出请求, 否则取消 dubbo 中等待响应的 future
+     *
+     * @param dubboMethodEntity dubbo method entity
+     * @param executor          executor for reference lookup
+     * @param timing            timing
+     * @return the completable future
+     * @since 1.3.2
+     */
+    public CompletableFuture<Object> invokeAsync(DubboMethodEntity dubboMethodEntity,
+                                                 Executor executor,
+                                                 InvocationTiming timing) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("invoke method async {}", Json.stringify(dubboMethodEntity));
+        }
+
+        if (isBlankEntity(dubboMethodEntity)) {
+            return CompletableFuture.completedFuture("");
+        }
+        long submitTime = System.nanoTime();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<PreparedInvocation> lookup;
+        try {
+            lookup = CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                timing.setQueue(start - submitTime);
+                PreparedInvocation invocation = this.prepare(dubboMethodEntity);
+                timing.setReference(System.nanoTime() - start);
+                timing.setReferenceCreated(invocation.isReferenceCreated());
+                return invocation;
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        lookup.whenComplete((invocation, lookupFailure) -> {
+            if (lookupFailure != null) {
+                future.completeExceptionally(lookupFailure);
+                return;
+            }
+            if (future.isDone()) {
+                //查找引用期间已被取消或超时
+                return;
+            }
+            long start = System.nanoTime();
+            CompletableFuture<Object> call = invocation.invokeAsync();
+            future.whenComplete((result, throwable) -> {
+                if (future.isCancelled()) {
+                    call.cancel(true);
+                }
+            });
+            call.whenComplete((result, throwable) -> {
+                timing.setRoundTrip(System.nanoTime() - start);
+                if (throwable == null) {
+                    future.complete(result);
+                } else {
+                    future.completeExceptionally(throwable);
+                }
+            });
+        });
+        return future;
+    }
+
+    /**
+     * 在后台预先创建引用(连接注册中心, 订阅并连接服务提供者), 点击 Run 时只需要发出请求.
+     * 只需要地址, 接口名, 分组和版本, 失败时忽略
+     *
+     * @param dubboMethodEntity dubbo method entity
+     * @param executor          executor
+     * @since 1.3.2
+     */
+    public void warmUp(DubboMethodEntity dubboMethodEntity, Executor executor) {
         if (dubboMethodEntity == null
                 || StrUtils.isBlank(dubboMethodEntity.getAddress())
-                || StrUtils.isBlank(dubboMethodEntity.getMethodName())
                 || StrUtils.isBlank(dubboMethodEntity.getInterfaceName())) {
-            return "";
+            return;
+        }
+        DubboMethodEntity snapshot = dubboMethodEntity.copy();
+        String key = getReferenceKey(snapshot);
+        if (!warmingKeys.add(key)) {
+            return;
         }
-        ReferenceConfig<GenericService> referenceConfig = this.getReferenceConfig(dubboMethodEntity);
-        SimpleReferenceCache cache = SimpleReferenceCache.getCache(CACHE_NAME, generator);
         try {
-            GenericService genericService = cache.get(referenceConfig);
-            return genericService.$invoke(dubboMethodEntity.getMethodName(),
-                    dubboMethodEntity.getMethodType(),
-                    dubboMethodEntity.getParam());
-        } catch (Exception e) {
-            cache.destroy(referenceConfig);
-            throw e;
+            executor.execute(() -> {
+                try {
+                    referenceCache.acquire(key, () -> this.getReferenceConfig(snapshot)).getGenericService();
+                } catch (Exception e) {
+                    LOGGER.debug("warm up reference {} failed", key, e);
+                } finally {
+                    warmingKeys.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            warmingKeys.remove(key);
         }
     }
 
+    /**
+     * 引用缓存的 key, 接口/分组/版本/地址相同时共用一个引用
+     *
+     * @param dubboMethodEntity dubbo method entity
+     * @return the reference key
+     */
+    private static String getReferenceKey(DubboMethodEntity dubboMethodEntity) {
+        return dubboMethodEntity.getInterfaceName()
+                + "_" + StringUtils.defaultString(dubboMethodEntity.getGroup())
+                + "_" + StringUtils.defaultString(dubboMethodEntity.getVersion())
+                + "_" + dubboMethodEntity.getAddress();
+    }
+
+    private static boolean isBlankEntity(DubboMethodEntity dubboMethodEntity) {
+        return dubboMethodEntity == null
+                || StrUtils.isBlank(dubboMethodEntity.getAddress())
+                || StrUtils.isBlank(dubboMethodEntity.getMethodName())
+                || StrUtils.isBlank(dubboMethodEntity.getInterfaceName());
+    }
+
     /**
      * Get reference config
      *
@@ -108,7 +228,7 @@ public class DubboApiLocator {
         reference.setCheck(false);
         reference.setGeneric("true");
         reference.setRetries(0);
-        reference.setTimeout(10 * 1000);
+        reference.setTimeout(DubboMethodEntity.DEFAULT_TIMEOUT);
         reference.setReconnect("false"); // 不尝试重连
         if (dubboMethodEntity.getAddress().startsWith(AddressTypeEnum.dubbo.name())) {
             reference.setUrl(dubboMethodEntity.getAddress());
@@ -11,6 +11,9 @@ package com.yanglx.dubbo.test.dubbo;
  */
 public class DubboMethodEntity {
 
+    /** 默认超时时间(ms) */
+    public static final int DEFAULT_TIMEOUT = 10 * 1000;
+
     private String id;
     /** Interface name */
     private String interfaceName;
@@ -26,6 +29,18 @@ public class DubboMethodEntity {
     private Object[] param;
     /** Address */
     private String address;
+    /** Timeout(ms), 为空时使用引用的默认超时时间 */
+    private Integer timeout;
+    /** Batch params, 批量调用时每个元素是一组参数 */
+    private Object[][] batch;
+    /** Batch file, 批量调用的参数文件 */
+    private String batchFile;
+    /** Depth, 批量调用时同时在途的请求数 */
+    private Integer depth;
+    /** Feed file, CSV 或 JSONL 文件, 每行的值绑定到 param 中的 ${列名} 占位符 */
+    private String feedFile;
+    /** Assertions, 批量调用和压测时对每个结果求值的响应断言 */
+    private String[] assertions;
 
     public String getId() {
         return id;
@@ -90,4 +105,76 @@ public class DubboMethodEntity {
     public void setAddress(String address) {
         this.address = address;
     }
+
+    public Integer getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Integer timeout) {
+        this.timeout = timeout;
+    }
+
+    public Object[][] getBatch() {
+        return batch;
+    }
+
+    public void setBatch(Object[][] batch) {
+        this.batch = batch;
+    }
+
+    public String getBatchFile() {
+        return batchFile;
+    }
+
+    public void setBatchFile(String batchFile) {
+        this.batchFile = batchFile;
+    }
+
+    public Integer getDepth() {
+        return depth;
+    }
+
+    public void setDepth(Integer depth) {
+        this.depth = depth;
+    }
+
+    public String getFeedFile() {
+        return feedFile;
+    }
+
+    public void setFeedFile(String feedFile) {
+        this.feedFile = feedFile;
+    }
+
+    public String[] getAssertions() {
+        return assertions;
+    }
+
+    public void setAssertions(String[] assertions) {
+        this.assertions = assertions;
+    }
+
+    /**
+     * 复制一份, 避免后台调用时被界面修改
+     *
+     * @return the dubbo method entity
+     */
+    public DubboMethodEntity copy() {
+        DubboMethodEntity copy = new DubboMethodEntity();
+        copy.setId(this.id);
+        copy.setInterfaceName(this.interfaceName);
+        copy.setMethodName(this.methodName);
+        copy.setVersion(this.version);
+        copy.setGroup(this.group);
+        copy.setMethodType(this.methodType == null ? null : this.methodType.clone());
+        copy.setParam(this.param == null ? null : this.param.clone());
+        copy.setAddress(this.address);
+        copy.setTimeout(this.timeout);
+        copy.setBatch(this.batch == null ? null : this.batch.clone());
+        copy.setBatchFile(this.batchFile);
+        copy.setDepth(this.depth);
+        copy.setFeedFile(this.feedFile);
+        copy.setAssertions(this.assertions == null ? null : this.assertions.clone());
+        return copy;
+    }
 }
@@ -0,0 +1,98 @@
+package com.yanglx.dubbo.test.dubbo;
+
+import org.apache.dubbo.remoting.RemotingException;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.service.GenericException;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 调用失败的分类, 只有连接和注册中心的问题才需要销毁缓存的引用
+ */
+public enum FailureType {
+    /** 服务提供者抛出的业务异常 */
+    BUSINESS(false),
+    /** 超时 */
+    TIMEOUT(false),
+    /** 序列化或反序列化失败 */
+    SERIALIZATION(false),
+    /** 方法不存在, 参数校验失败, 被限流等请求本身的问题 */
+    REQUEST(false),
+    /** 调用方取消 */
+    CANCELLED(false),
+    /** 连接断开, 连接失败 */
+    NETWORK(true),
+    /** 注册中心异常或没有可用的服务提供者 */
+    REGISTRY(true),
+    /** 其他 */
+    UNKNOWN(false);
+
+    /**
+     * 是否需要销毁引用
+     */
+    private final boolean destroyReference;
+
+    FailureType(boolean destroyReference) {
+        this.destroyReference = destroyReference;
+    }
+
+    public boolean isDestroyReference() {
+        return destroyReference;
+    }
+
+    /**
+     * 根据异常及其 cause 判断失败类型
+     *
+     * @param throwable throwable
+     * @return the failure type
+     */
+    public static FailureType classify(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof GenericException) {
+                return BUSINESS;
+            }
+            if (t instanceof CancellationException) {
+                return CANCELLED;
+            }
+            if (t instanceof RpcException) {
+                FailureType type = classify((RpcException) t);
+                if (type != UNKNOWN) {
+                    return type;
+                }
+            }
+            if (t instanceof org.apache.dubbo.remoting.TimeoutException || t instanceof TimeoutException) {
+                return TIMEOUT;
+            }
+            if (t instanceof RemotingException) {
+                return NETWORK;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private static FailureType classify(RpcException e) {
+        switch (e.getCode()) {
+            case RpcException.BIZ_EXCEPTION:
+                return BUSINESS;
+            case RpcException.TIMEOUT_EXCEPTION:
+            case RpcException.TIMEOUT_TERMINATE:
+                return TIMEOUT;
+            case RpcException.SERIALIZATION_EXCEPTION:
+                return SERIALIZATION;
+            case RpcException.METHOD_NOT_FOUND:
+            case RpcException.VALIDATION_EXCEPTION:
+            case RpcException.LIMIT_EXCEEDED_EXCEPTION:
+                return REQUEST;
+            case RpcException.NETWORK_EXCEPTION:
+                return NETWORK;
+            case RpcException.FORBIDDEN_EXCEPTION:
+            case RpcException.NO_INVOKER_AVAILABLE_AFTER_FILTER:
+            case RpcException.REGISTRY_EXCEPTION:
+            case RpcException.ROUTER_CACHE_NOT_BUILD:
+                return REGISTRY;
+            default:
+                return UNKNOWN;
+        }
+    }
+}
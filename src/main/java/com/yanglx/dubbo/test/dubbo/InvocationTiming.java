@@ -0,0 +1,115 @@
+package com.yanglx.dubbo.test.dubbo;
+
+/**
+ * 一次调用各阶段的耗时(纳秒), 用于判断慢在客户端, 注册中心还是服务提供者
+ */
+public class InvocationTiming {
+
+    /**
+     * 提交到线程池到开始执行
+     */
+    private volatile long queue;
+
+    /**
+     * 查找或创建引用, 创建引用时包含注册中心订阅和连接服务提供者
+     */
+    private volatile long reference;
+
+    /**
+     * 本次调用是否新建了引用
+     */
+    private volatile boolean referenceCreated;
+
+    /**
+     * 请求参数序列化(hessian2 本地估算)
+     */
+    private volatile long serialization = -1;
+
+    /**
+     * 发出请求到收到结果, 包含网络, 服务端处理以及 IO 线程上的编解码
+     */
+    private volatile long roundTrip;
+
+    /**
+     * 结果反序列化(hessian2 本地估算)
+     */
+    private volatile long deserialization = -1;
+
+    /**
+     * 格式化结果
+     */
+    private volatile long prettyPrint;
+
+    public long getQueue() {
+        return queue;
+    }
+
+    public void setQueue(long queue) {
+        this.queue = queue;
+    }
+
+    public long getReference() {
+        return reference;
+    }
+
+    public void setReference(long reference) {
+        this.reference = reference;
+    }
+
+    public boolean isReferenceCreated() {
+        return referenceCreated;
+    }
+
+    public void setReferenceCreated(boolean referenceCreated) {
+        this.referenceCreated = referenceCreated;
+    }
+
+    public long getSerialization() {
+        return serialization;
+    }
+
+    public void setSerialization(long serialization) {
+        this.serialization = serialization;
+    }
+
+    public long getRoundTrip() {
+        return roundTrip;
+    }
+
+    public void setRoundTrip(long roundTrip) {
+        this.roundTrip = roundTrip;
+    }
+
+    public long getDeserialization() {
+        return deserialization;
+    }
+
+    public void setDeserialization(long deserialization) {
+        this.deserialization = deserialization;
+    }
+
+    public long getPrettyPrint() {
+        return prettyPrint;
+    }
+
+    public void setPrettyPrint(long prettyPrint) {
+        this.prettyPrint = prettyPrint;
+    }
+
+    @Override
+    public String toString() {
+        return "queue " + millis(queue)
+                + " | " + (referenceCreated ? "reference create(registry + connect) " : "reference lookup ") + millis(reference)
+                + " | serialize~ " + millis(serialization)
+                + " | round-trip " + millis(roundTrip)
+                + " | deserialize~ " + millis(deserialization)
+                + " | pretty-print " + millis(prettyPrint);
+    }
+
+    private static String millis(long nanos) {
+        if (nanos < 0) {
+            return "-";
+        }
+        return String.format("%.2fms", nanos / 1_000_000.0);
+    }
+}
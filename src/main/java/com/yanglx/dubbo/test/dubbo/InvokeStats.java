@@ -0,0 +1,67 @@
+package com.yanglx.dubbo.test.dubbo;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 调用结果计数, 按 {@link FailureType} 统计失败次数
+ */
+public class InvokeStats {
+
+    private static final InvokeStats INSTANCE = new InvokeStats();
+
+    private static final FailureType[] TYPES = FailureType.values();
+
+    private final AtomicLong successes = new AtomicLong();
+
+    private final AtomicLongArray failures = new AtomicLongArray(TYPES.length);
+
+    /**
+     * 因失败而销毁的引用数
+     */
+    private final AtomicLong destroyedReferences = new AtomicLong();
+
+    public static InvokeStats getInstance() {
+        return INSTANCE;
+    }
+
+    public void recordSuccess() {
+        this.successes.incrementAndGet();
+    }
+
+    /**
+     * 记录一次失败
+     *
+     * @param throwable throwable
+     * @return the failure type
+     */
+    public FailureType recordFailure(Throwable throwable) {
+        FailureType type = FailureType.classify(throwable);
+        this.failures.incrementAndGet(type.ordinal());
+        if (type.isDestroyReference()) {
+            this.destroyedReferences.incrementAndGet();
+        }
+        return type;
+    }
+
+    public long getSuccesses() {
+        return successes.get();
+    }
+
+    public long getFailures(FailureType type) {
+        return failures.get(type.ordinal());
+    }
+
+    public long getDestroyedReferences() {
+        return destroyedReferences.get();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("success:").append(getSuccesses());
+        for (FailureType type : TYPES) {
+            builder.append(' ').append(type.name().toLowerCase()).append(':').append(getFailures(type));
+        }
+        return builder.append(" destroyed:").append(getDestroyedReferences()).toString();
+    }
+}
@@ -0,0 +1,245 @@
+package com.yanglx.dubbo.test.dubbo;
+
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.service.GenericService;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 预解析的调用, 持有 {@link GenericService} 与方法签名, 重复调用时不再重建 ReferenceConfig.
+ * 通过 {@link DubboApiLocator#prepare(DubboMethodEntity)} 创建
+ */
+public class PreparedInvocation {
+
+    /**
+     * Reference cache
+     */
+    private final ReferenceCache cache;
+
+    /**
+     * Reference key
+     */
+    private final String key;
+
+    /**
+     * Reference config factory, 引用被淘汰后重新创建时使用
+     */
+    private final Supplier<ReferenceConfig<GenericService>> factory;
+
+    /**
+     * Method name
+     */
+    private final String methodName;
+
+    /**
+     * Method type
+     */
+    private final String[] methodType;
+
+    /**
+     * Default param
+     */
+    private final Object[] param;
+
+    /**
+     * Timeout(ms), 通过 attachment 传给 dubbo, 为空时使用引用的默认超时时间
+     */
+    private final Integer timeout;
+
+    /**
+     * Address, 用于查找地址的限流
+     */
+    private final String address;
+
+    /**
+     * Cached reference, 连接失败或被淘汰后引用被销毁, 下次调用重新获取
+     */
+    private volatile ReferenceCache.Entry entry;
+
+    /**
+     * 准备时是否新建了引用
+     */
+    private final boolean referenceCreated;
+
+    PreparedInvocation(ReferenceCache cache,
+                       String key,
+                       Supplier<ReferenceConfig<GenericService>> factory,
+                       DubboMethodEntity dubboMethodEntity) {
+        this.cache = cache;
+        this.key = key;
+        this.factory = factory;
+        this.methodName = dubboMethodEntity.getMethodName();
+        this.methodType = dubboMethodEntity.getMethodType() == null
+                ? new String[]{} : dubboMethodEntity.getMethodType().clone();
+        this.param = dubboMethodEntity.getParam() == null
+                ? new Object[]{} : dubboMethodEntity.getParam().clone();
+        this.timeout = dubboMethodEntity.getTimeout();
+        this.address = dubboMethodEntity.getAddress();
+        this.entry = cache.acquire(key, factory);
+        this.referenceCreated = !this.entry.isInitialized();
+        this.getGenericService();
+    }
+
+    /**
+     * 使用准备时的参数调用
+     *
+     * @return the object
+     */
+    public Object invoke() {
+        return this.invoke(this.param);
+    }
+
+    /**
+     * 使用给定参数调用
+     *
+     * @param param param
+     * @return the object
+     */
+    public Object invoke(Object[] param) {
+        this.acquireRateLimit();
+        return this.invokeAcquired(param);
+    }
+
+    /**
+     * 已经通过 {@link #acquireRateLimit()} 获取令牌后调用, 调用方计时的时候不包含等待令牌的时间
+     *
+     * @param param param, 为 null 时使用准备时的参数
+     * @return the object
+     */
+    public Object invokeAcquired(Object[] param) {
+        try {
+            GenericService genericService = this.getGenericService();
+            this.attachTimeout();
+            Object result = genericService.$invoke(this.methodName, this.methodType, param == null ? this.param : param);
+            InvokeStats.getInstance().recordSuccess();
+            return result;
+        } catch (Exception e) {
+            this.onFailure(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 使用准备时的参数异步调用
+     *
+     * @return the completable future
+     */
+    public CompletableFuture<Object> invokeAsync() {
+        return this.invokeAsync(this.param);
+    }
+
+    /**
+     * 使用给定参数异步调用, 取消返回的 future 时会取消 dubbo 中等待响应的 future
+     *
+     * @param param param
+     * @return the completable future
+     */
+    public CompletableFuture<Object> invokeAsync(Object[] param) {
+        try {
+            this.acquireRateLimit();
+        } catch (CancellationException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return this.invokeAsyncAcquired(param);
+    }
+
+    /**
+     * 已经通过 {@link #acquireRateLimit()} 获取令牌后异步调用, 取消返回的 future 时会取消 dubbo 中等待响应的 future
+     *
+     * @param param param
+     * @return the completable future
+     */
+    public CompletableFuture<Object> invokeAsyncAcquired(Object[] param) {
+        CompletableFuture<Object> future;
+        try {
+            GenericService genericService = this.getGenericService();
+            this.attachTimeout();
+            future = genericService.$invokeAsync(this.methodName, this.methodType, param);
+        } catch (Exception e) {
+            this.onFailure(e);
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<Object> result = future.whenComplete((value, throwable) -> {
+            if (throwable != null) {
+                this.onFailure(throwable);
+            } else {
+                InvokeStats.getInstance().recordSuccess();
+            }
+        });
+        result.whenComplete((value, throwable) -> {
+            if (result.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    public boolean isReferenceCreated() {
+        return referenceCreated;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public String[] getMethodType() {
+        return methodType.clone();
+    }
+
+    public Object[] getParam() {
+        return param.clone();
+    }
+
+    private GenericService getGenericService() {
+        ReferenceCache.Entry current = this.entry;
+        if (current.isDestroyed()) {
+            current = this.cache.acquire(this.key, this.factory);
+            this.entry = current;
+        } else {
+            current.touch();
+        }
+        try {
+            return current.getGenericService();
+        } catch (RuntimeException e) {
+            this.cache.destroy(current);
+            throw e;
+        }
+    }
+
+    /**
+     * 地址设置了每秒请求上限时等待令牌, 每次调用时查找, 修改设置后立即生效
+     *
+     * @throws CancellationException 等待时被中断
+     */
+    public void acquireRateLimit() {
+        RateLimiter limiter = RateLimiters.getInstance().get(this.address);
+        if (limiter != null) {
+            limiter.acquire();
+        }
+    }
+
+    /**
+     * 本次调用的超时时间, dubbo 优先使用 attachment 中的 timeout
+     */
+    private void attachTimeout() {
+        if (this.timeout != null && this.timeout > 0) {
+            RpcContext.getClientAttachment().setObjectAttachment(CommonConstants.TIMEOUT_KEY, this.timeout);
+        }
+    }
+
+    /**
+     * 业务异常和超时不影响连接, 只有连接或注册中心异常才销毁引用
+     *
+     * @param throwable throwable
+     */
+    private void onFailure(Throwable throwable) {
+        FailureType type = InvokeStats.getInstance().recordFailure(throwable);
+        if (type.isDestroyReference()) {
+            this.cache.destroy(this.entry);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.yanglx.dubbo.test.dubbo;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 令牌桶限流: 每秒产生 rate 个令牌, 最多积累 0.1 秒的令牌. 使用下一个令牌的可用时间实现, 获取令牌时只有一次 CAS
+ */
+public class RateLimiter {
+
+    /**
+     * 最多积累的令牌时间
+     */
+    private static final long BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * 每秒令牌数
+     */
+    private final int rate;
+
+    /**
+     * 两个令牌的间隔
+     */
+    private final long intervalNanos;
+
+    /**
+     * 下一个令牌的可用时间
+     */
+    private final AtomicLong next = new AtomicLong(System.nanoTime());
+
+    public RateLimiter(int rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        this.rate = rate;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    /**
+     * 获取一个令牌, 没有令牌时等待
+     *
+     * @throws CancellationException 等待时被中断, 线程的中断状态会被保留
+     */
+    public void acquire() {
+        long available;
+        while (true) {
+            long now = System.nanoTime();
+            long current = this.next.get();
+            //空闲时最多积累 BURST_NANOS 的令牌
+            available = Math.max(current, now - Math.max(BURST_NANOS, this.intervalNanos));
+            if (this.next.compareAndSet(current, available + this.intervalNanos)) {
+                break;
+            }
+        }
+        long remaining;
+        while ((remaining = available - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Interrupted while waiting for the rate limit");
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.yanglx.dubbo.test.dubbo;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按注册中心地址共享的限流, 同一个地址的所有 tab, 批量调用和压测共用一个令牌桶, 避免压垮共享的环境.
+ * 地址的每秒请求上限来自设置中的 dubbo 配置
+ */
+public class RateLimiters {
+
+    private static final RateLimiters INSTANCE = new RateLimiters();
+
+    /**
+     * address -> rate limiter, 整体替换, 读取时不加锁
+     */
+    private volatile Map<String, RateLimiter> limiters = Collections.emptyMap();
+
+    public static RateLimiters getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 设置每个地址的上限, 上限不变的地址保留原来的令牌桶
+     *
+     * @param maxRps address -> 每秒请求上限, 为空或不大于 0 时不限制
+     */
+    public synchronized void configure(Map<String, Integer> maxRps) {
+        Map<String, RateLimiter> limiters = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : maxRps.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null || entry.getValue() <= 0) {
+                continue;
+            }
+            RateLimiter current = this.limiters.get(entry.getKey());
+            limiters.put(entry.getKey(), current != null && current.getRate() == entry.getValue()
+                    ? current : new RateLimiter(entry.getValue()));
+        }
+        this.limiters = limiters;
+    }
+
+    /**
+     * 地址的限流
+     *
+     * @param address address
+     * @return 没有上限时返回 null
+     */
+    public RateLimiter get(String address) {
+        return address == null ? null : this.limiters.get(address);
+    }
+}
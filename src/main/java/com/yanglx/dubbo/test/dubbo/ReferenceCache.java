@@ -0,0 +1,281 @@
+package com.yanglx.dubbo.test.dubbo;
+
+import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.rpc.service.GenericService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * GenericService 引用缓存, 替代 SimpleReferenceCache.
+ * 按最近使用淘汰超出 maxSize 的引用, 并淘汰空闲超过 idleTimeout 的引用, 淘汰时销毁引用释放连接和注册中心订阅
+ */
+public class ReferenceCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceCache.class);
+
+    public static final int DEFAULT_MAX_SIZE = 32;
+
+    public static final int DEFAULT_IDLE_MINUTES = 30;
+
+    private static final ReferenceCache INSTANCE = new ReferenceCache();
+
+    /**
+     * access order, 最久未使用的在前
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+    private volatile long idleTimeoutMillis = TimeUnit.MINUTES.toMillis(DEFAULT_IDLE_MINUTES);
+
+    public static ReferenceCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 修改容量和空闲时间, 立即淘汰超出的引用
+     *
+     * @param maxSize     max size
+     * @param idleMinutes idle minutes
+     */
+    public void configure(int maxSize, int idleMinutes) {
+        this.maxSize = Math.max(1, maxSize);
+        this.idleTimeoutMillis = TimeUnit.MINUTES.toMillis(Math.max(1, idleMinutes));
+        List<Entry> evicted;
+        synchronized (this) {
+            evicted = this.evictOverflow();
+        }
+        destroy(evicted);
+        this.evictIdle();
+    }
+
+    /**
+     * 获取缓存的引用, 不存在时使用 factory 创建 ReferenceConfig
+     *
+     * @param key     key
+     * @param factory reference config factory
+     * @return the entry
+     */
+    public Entry acquire(String key, Supplier<ReferenceConfig<GenericService>> factory) {
+        Entry entry;
+        List<Entry> evicted = null;
+        synchronized (this) {
+            entry = this.entries.get(key);
+            if (entry == null) {
+                this.misses.incrementAndGet();
+                entry = new Entry(key, factory.get());
+                this.entries.put(key, entry);
+                evicted = this.evictOverflow();
+            } else {
+                this.hits.incrementAndGet();
+            }
+        }
+        entry.touch();
+        destroy(evicted);
+        return entry;
+    }
+
+    /**
+     * 销毁并移除引用
+     *
+     * @param entry entry
+     */
+    public void destroy(Entry entry) {
+        synchronized (this) {
+            this.entries.remove(entry.getKey(), entry);
+        }
+        entry.destroy();
+    }
+
+    /**
+     * 淘汰空闲超时的引用
+     */
+    public void evictIdle() {
+        long deadline = System.currentTimeMillis() - this.idleTimeoutMillis;
+        List<Entry> evicted = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Entry> iterator = this.entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.getLastAccessTime() < deadline) {
+                    iterator.remove();
+                    evicted.add(entry);
+                }
+            }
+        }
+        this.evictions.addAndGet(evicted.size());
+        destroy(evicted);
+    }
+
+    /**
+     * 销毁所有引用
+     */
+    public void destroyAll() {
+        List<Entry> all;
+        synchronized (this) {
+            all = new ArrayList<>(this.entries.values());
+            this.entries.clear();
+        }
+        destroy(all);
+    }
+
+    /**
+     * 当前存活的引用, 最近使用的在前
+     *
+     * @return the list
+     */
+    public List<Entry> snapshot() {
+        List<Entry> list;
+        synchronized (this) {
+            list = new ArrayList<>(this.entries.values());
+        }
+        list.sort((o1, o2) -> Long.compare(o2.getLastAccessTime(), o1.getLastAccessTime()));
+        return list;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public String toString() {
+        return "size:" + this.snapshot().size() + " hits:" + getHits() + " misses:" + getMisses() + " evictions:" + getEvictions();
+    }
+
+    private List<Entry> evictOverflow() {
+        List<Entry> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry>> iterator = this.entries.entrySet().iterator();
+        while (this.entries.size() > this.maxSize && iterator.hasNext()) {
+            evicted.add(iterator.next().getValue());
+            iterator.remove();
+        }
+        this.evictions.addAndGet(evicted.size());
+        return evicted;
+    }
+
+    private static void destroy(List<Entry> entries) {
+        if (entries == null) {
+            return;
+        }
+        for (Entry entry : entries) {
+            entry.destroy();
+        }
+    }
+
+    /**
+     * 缓存的引用
+     */
+    public static class Entry {
+
+        private final String key;
+
+        private final ReferenceConfig<GenericService> referenceConfig;
+
+        private final long createTime = System.currentTimeMillis();
+
+        private volatile long lastAccessTime = createTime;
+
+        private volatile GenericService genericService;
+
+        private volatile boolean destroyed;
+
+        Entry(String key, ReferenceConfig<GenericService> referenceConfig) {
+            this.key = key;
+            this.referenceConfig = referenceConfig;
+        }
+
+        /**
+         * 获取 GenericService, 首次调用时创建引用(连接注册中心和服务提供者)
+         *
+         * @return the generic service
+         */
+        public GenericService getGenericService() {
+            GenericService service = this.genericService;
+            if (service == null) {
+                synchronized (this) {
+                    if (this.destroyed) {
+                        throw new IllegalStateException("Reference " + this.key + " has been destroyed");
+                    }
+                    service = this.genericService;
+                    if (service == null) {
+                        service = this.referenceConfig.get();
+                        this.genericService = service;
+                    }
+                }
+            }
+            return service;
+        }
+
+        void touch() {
+            this.lastAccessTime = System.currentTimeMillis();
+        }
+
+        synchronized void destroy() {
+            if (this.destroyed) {
+                return;
+            }
+            this.destroyed = true;
+            this.genericService = null;
+            try {
+                this.referenceConfig.destroy();
+            } catch (Exception e) {
+                LOGGER.warn("destroy reference {} failed", this.key, e);
+            }
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getInterfaceName() {
+            return referenceConfig.getInterface();
+        }
+
+        public String getUrl() {
+            return referenceConfig.getUrl();
+        }
+
+        public long getCreateTime() {
+            return createTime;
+        }
+
+        public long getLastAccessTime() {
+            return lastAccessTime;
+        }
+
+        public boolean isInitialized() {
+            return genericService != null;
+        }
+
+        public boolean isDestroyed() {
+            return destroyed;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.yanglx.dubbo.test.dubbo;
+
+import org.apache.dubbo.common.serialize.ObjectInput;
+import org.apache.dubbo.common.serialize.ObjectOutput;
+import org.apache.dubbo.common.serialize.Serialization;
+import org.apache.dubbo.common.serialize.hessian2.Hessian2Serialization;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * 估算序列化耗时. dubbo 在 IO 线程上编解码, 拿不到实际耗时,
+ * 这里用默认的 hessian2 在本地对同样的数据做一次序列化/反序列化来估算.
+ * 估算本身有开销, 在调用结束后执行, 不计入调用的耗时
+ */
+public class SerializationProbe {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SerializationProbe.class);
+
+    private static final Serialization serialization = new Hessian2Serialization();
+
+    /**
+     * 估算参数序列化和结果反序列化的耗时
+     *
+     * @param timing timing
+     * @param param  param
+     * @param result result
+     */
+    public static void probe(InvocationTiming timing, Object[] param, Object result) {
+        timing.setSerialization(serializeNanos(param));
+        timing.setDeserialization(deserializeNanos(result));
+    }
+
+    /**
+     * 序列化参数的耗时
+     *
+     * @param param param
+     * @return nanos, 失败时返回 -1
+     */
+    public static long serializeNanos(Object[] param) {
+        try {
+            long start = System.nanoTime();
+            serialize(param);
+            return System.nanoTime() - start;
+        } catch (Exception e) {
+            LOGGER.debug("serialize probe failed", e);
+            return -1;
+        }
+    }
+
+    /**
+     * 反序列化结果的耗时
+     *
+     * @param result result
+     * @return nanos, 失败时返回 -1
+     */
+    public static long deserializeNanos(Object result) {
+        try {
+            byte[] bytes = serialize(new Object[]{result});
+            long start = System.nanoTime();
+            ObjectInput input = serialization.deserialize(null, new ByteArrayInputStream(bytes));
+            input.readObject();
+            return System.nanoTime() - start;
+        } catch (Exception e) {
+            LOGGER.debug("deserialize probe failed", e);
+            return -1;
+        }
+    }
+
+    private static byte[] serialize(Object[] values) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(256);
+        ObjectOutput output = serialization.serialize(null, outputStream);
+        if (values != null) {
+            for (Object value : values) {
+                output.writeObject(value);
+            }
+        }
+        output.flushBuffer();
+        return outputStream.toByteArray();
+    }
+}
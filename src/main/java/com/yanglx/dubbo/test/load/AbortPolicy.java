@@ -0,0 +1,57 @@
+package com.yanglx.dubbo.test.load;
+
+/**
+ * 压测和批量调用的中止条件: 最近一段时间的错误率或超时率达到阈值时中止, 避免持续压垮已经异常的服务
+ */
+public class AbortPolicy {
+
+    /**
+     * 默认错误率阈值(%)
+     */
+    public static final int DEFAULT_ERROR_RATE = 50;
+
+    /**
+     * 默认超时率阈值(%)
+     */
+    public static final int DEFAULT_TIMEOUT_RATE = 20;
+
+    /**
+     * 不中止
+     */
+    public static final AbortPolicy NONE = new AbortPolicy(0, 0);
+
+    /**
+     * 错误率阈值(%), 0 表示不检查
+     */
+    private final int errorRate;
+
+    /**
+     * 超时率阈值(%), 0 表示不检查
+     */
+    private final int timeoutRate;
+
+    public AbortPolicy(int errorRate, int timeoutRate) {
+        if (errorRate < 0 || errorRate > 100 || timeoutRate < 0 || timeoutRate > 100) {
+            throw new IllegalArgumentException("abort rates must be between 0 and 100");
+        }
+        this.errorRate = errorRate;
+        this.timeoutRate = timeoutRate;
+    }
+
+    public int getErrorRate() {
+        return errorRate;
+    }
+
+    public int getTimeoutRate() {
+        return timeoutRate;
+    }
+
+    /**
+     * 每次执行使用一个新的熔断器
+     *
+     * @return the circuit breaker
+     */
+    public CircuitBreaker newBreaker() {
+        return new CircuitBreaker(this.errorRate, this.timeoutRate);
+    }
+}
@@ -0,0 +1,174 @@
+package com.yanglx.dubbo.test.load;
+
+import com.yanglx.dubbo.test.dubbo.DubboApiLocator;
+import com.yanglx.dubbo.test.dubbo.PreparedInvocation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开放模型压测: 按 {@link LoadProfile} 的速率异步发送请求, 不等待前一个请求返回, 结果按阶段分别统计.
+ * 延迟从计划发送时间开始计算, 服务端变慢或发送线程落后时排队的时间也会计入, 避免 coordinated omission.
+ * 熔断器打开时停止发送, 等待在途的请求结束
+ */
+public class ArrivalRateRunner implements LoadRunner {
+
+    /**
+     * 最多在途请求数, 超过时发送线程等待, 等待的时间计入后续请求的延迟
+     */
+    private static final int MAX_OUTSTANDING = 10_000;
+
+    /**
+     * Dubbo api locator
+     */
+    private final DubboApiLocator dubboApiLocator;
+
+    /**
+     * Load profile
+     */
+    private final LoadProfile profile;
+
+    /**
+     * Abort policy
+     */
+    private final AbortPolicy abortPolicy;
+
+    public ArrivalRateRunner(DubboApiLocator dubboApiLocator, LoadProfile profile, AbortPolicy abortPolicy) {
+        this.dubboApiLocator = dubboApiLocator;
+        this.profile = profile;
+        this.abortPolicy = abortPolicy;
+    }
+
+    @Override
+    public LoadTestReport run(WorkloadMix workloadMix) throws InterruptedException {
+        PreparedInvocation[] invocations = workloadMix.prepare(this.dubboApiLocator);
+        LatencyRecorder[] entryRecorders = workloadMix.newRecorders();
+        AtomicLongArray entryErrors = new AtomicLongArray(invocations.length);
+        List<LoadStage> stages = this.profile.getStages();
+        LatencyRecorder[] stageRecorders = new LatencyRecorder[stages.size()];
+        for (int i = 0; i < stageRecorders.length; i++) {
+            stageRecorders[i] = new LatencyRecorder();
+        }
+        AtomicLongArray stageErrors = new AtomicLongArray(stages.size());
+        AtomicIntegerArray stagePeakOutstanding = new AtomicIntegerArray(stages.size());
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+        Semaphore outstanding = new Semaphore(MAX_OUTSTANDING);
+        Set<CompletableFuture<Object>> inflight = ConcurrentHashMap.newKeySet();
+        ResponseAssertions[] assertions = workloadMix.compileAssertions();
+        ResponseSampler sampler = workloadMix.newSampler();
+        CircuitBreaker breaker = this.abortPolicy.newBreaker();
+        ParamFeed[] feeds = workloadMix.openFeeds();
+
+        long start = System.nanoTime();
+        long stageStart = start;
+        long sent = 0;
+        long sendNanos;
+        try {
+            send:
+            for (int stageIndex = 0; stageIndex < stages.size(); stageIndex++) {
+                LoadStage stage = stages.get(stageIndex);
+                LatencyRecorder stageRecorder = stageRecorders[stageIndex];
+                int currentStage = stageIndex;
+                for (long i = 0; i < stage.getRequests(); i++) {
+                    long intended = stageStart + Math.round(stage.arrivalTime(i) * TimeUnit.SECONDS.toNanos(1));
+                    sleepUntil(intended);
+                    outstanding.acquire();
+                    if (breaker.isOpen()) {
+                        outstanding.release();
+                        break send;
+                    }
+                    int entry = workloadMix.pick();
+                    Object[] next = null;
+                    CompletableFuture<Object> call;
+                    try {
+                        next = feeds[entry] == null ? null : feeds[entry].next();
+                        call = next == null
+                                ? invocations[entry].invokeAsync()
+                                : invocations[entry].invokeAsync(next);
+                    } catch (RuntimeException e) {
+                        //读取参数失败时记为失败的请求, 和其他失败一样计入熔断
+                        call = CompletableFuture.failedFuture(e);
+                    }
+                    Object[] param = next;
+                    CompletableFuture<Object> future = call;
+                    inflight.add(future);
+                    sent++;
+                    stagePeakOutstanding.accumulateAndGet(currentStage,
+                            MAX_OUTSTANDING - outstanding.availablePermits(), Math::max);
+                    future.whenComplete((result, throwable) -> {
+                        long latency = System.nanoTime() - intended;
+                        stageRecorder.recordNanos(latency);
+                        entryRecorders[entry].recordNanos(latency);
+                        if (throwable == null && assertions[entry] != null) {
+                            assertions[entry].check(result);
+                        }
+                        sampler.record(entry, param, result, throwable, latency);
+                        breaker.record(throwable);
+                        if (throwable != null) {
+                            stageErrors.incrementAndGet(currentStage);
+                            entryErrors.incrementAndGet(entry);
+                            firstError.compareAndSet(null, throwable);
+                        }
+                        inflight.remove(future);
+                        outstanding.release();
+                    });
+                }
+                stageStart += TimeUnit.SECONDS.toNanos(stage.getDuration());
+            }
+            sendNanos = System.nanoTime() - start;
+            //等待在途的请求全部结束
+            outstanding.acquire(MAX_OUTSTANDING);
+        } catch (InterruptedException e) {
+            for (CompletableFuture<Object> future : inflight) {
+                future.cancel(true);
+            }
+            throw e;
+        } finally {
+            WorkloadMix.closeFeeds(feeds);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<LoadTestReport> stageReports = new ArrayList<>();
+        long errors = 0;
+        int peakOutstanding = 0;
+        for (int i = 0; i < stages.size(); i++) {
+            LoadStage stage = stages.get(i);
+            LatencyHistogram stageHistogram = stageRecorders[i].merge();
+            histogram.add(stageHistogram);
+            errors += stageErrors.get(i);
+            peakOutstanding = Math.max(peakOutstanding, stagePeakOutstanding.get(i));
+            stageReports.add(LoadTestReport.of(stageHistogram, stageErrors.get(i),
+                            TimeUnit.SECONDS.toNanos(stage.getDuration()), stagePeakOutstanding.get(i), null)
+                    .openModel((double) stage.getRequests() / stage.getDuration())
+                    .stage(stage.getName()));
+        }
+        return LoadTestReport.of(histogram, errors, elapsed, peakOutstanding, firstError.get())
+                .openModel((double) this.profile.getRequests() / this.profile.getDuration())
+                .sendRate(sent, sendNanos)
+                .profile(this.profile.getName(), stageReports)
+                .entries(workloadMix.entryReports(entryRecorders, entryErrors, elapsed, peakOutstanding))
+                .assertions(workloadMix.assertionReports(assertions))
+                .samples(sampler.snapshot())
+                .aborted(breaker.getReason());
+    }
+
+    private static void sleepUntil(long deadline) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.yanglx.dubbo.test.load;
+
+import java.util.List;
+
+/**
+ * 单个响应断言的结果
+ */
+public class AssertionReport {
+
+    /**
+     * 组合压测中的名称
+     */
+    private final String entry;
+
+    /**
+     * Expression
+     */
+    private final String expression;
+
+    /**
+     * Passed
+     */
+    private final long passed;
+
+    /**
+     * Failed
+     */
+    private final long failed;
+
+    /**
+     * 前几个失败时的实际值
+     */
+    private final List<String> failedSamples;
+
+    AssertionReport(String entry, String expression, long passed, long failed, List<String> failedSamples) {
+        this.entry = entry;
+        this.expression = expression;
+        this.passed = passed;
+        this.failed = failed;
+        this.failedSamples = failedSamples.isEmpty() ? null : failedSamples;
+    }
+
+    public String getEntry() {
+        return entry;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public long getPassed() {
+        return passed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public List<String> getFailedSamples() {
+        return failedSamples;
+    }
+}
@@ -0,0 +1,199 @@
+package com.yanglx.dubbo.test.load;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.yanglx.dubbo.test.dubbo.DubboApiLocator;
+import com.yanglx.dubbo.test.dubbo.DubboMethodEntity;
+import com.yanglx.dubbo.test.dubbo.PreparedInvocation;
+import com.yanglx.dubbo.test.utils.Json;
+import com.yanglx.dubbo.test.utils.StrUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 批量调用: 使用同一个引用依次调用多组参数, 最多 depth 个请求同时在途, 每个请求结束时回调 {@link Listener}.
+ * 参数来自 {@link DubboMethodEntity#getBatch()}, 或者 {@link DubboMethodEntity#getBatchFile()} 指定的文件:
+ * .jsonl 文件每行一组参数, 其他文件为参数数组的数组, 文件按需读取, 不会一次加载到内存.
+ * 设置了 {@link DubboMethodEntity#getFeedFile()} 时, 数据源的每一行绑定到 param 后调用一次, 否则 batch 的每一组参数原样调用一次.
+ * 熔断器打开时不再发出新的请求
+ */
+public class BatchRunner {
+
+    /**
+     * 默认在途请求数
+     */
+    public static final int DEFAULT_DEPTH = 4;
+
+    /**
+     * Dubbo api locator
+     */
+    private final DubboApiLocator dubboApiLocator;
+
+    /**
+     * Listener
+     */
+    private final Listener listener;
+
+    /**
+     * Abort policy
+     */
+    private final AbortPolicy abortPolicy;
+
+    /**
+     * 上一次执行熔断中止的原因, 未中止时为 null
+     */
+    private volatile String abortReason;
+
+    public BatchRunner(DubboApiLocator dubboApiLocator, Listener listener, AbortPolicy abortPolicy) {
+        this.dubboApiLocator = dubboApiLocator;
+        this.listener = listener;
+        this.abortPolicy = abortPolicy;
+    }
+
+    /**
+     * 是否是批量调用
+     *
+     * @param dubboMethodEntity dubbo method entity
+     * @return the boolean
+     */
+    public static boolean isBatch(DubboMethodEntity dubboMethodEntity) {
+        return dubboMethodEntity.getBatch() != null || StrUtils.isNotBlank(dubboMethodEntity.getBatchFile())
+                || StrUtils.isNotBlank(dubboMethodEntity.getFeedFile());
+    }
+
+    /**
+     * 执行批量调用, 阻塞直到所有请求结束. 中断时取消在途的请求
+     *
+     * @param dubboMethodEntity dubbo method entity
+     * @return 发出的请求数
+     * @throws InterruptedException interrupted
+     * @throws IOException          读取参数文件失败
+     */
+    public int run(DubboMethodEntity dubboMethodEntity) throws InterruptedException, IOException {
+        int depth = dubboMethodEntity.getDepth() == null || dubboMethodEntity.getDepth() <= 0
+                ? DEFAULT_DEPTH : dubboMethodEntity.getDepth();
+        PreparedInvocation invocation = this.dubboApiLocator.prepare(dubboMethodEntity);
+        Semaphore permits = new Semaphore(depth);
+        Set<CompletableFuture<Object>> inflight = ConcurrentHashMap.newKeySet();
+        CircuitBreaker breaker = this.abortPolicy.newBreaker();
+        int index = 0;
+        //没有数据源文件时 param 中的 seq, uuid 等生成值不会结束, 不能作为批量的参数来源
+        try (ParamFeed feed = StrUtils.isBlank(dubboMethodEntity.getFeedFile())
+                ? null : ParamFeed.open(dubboMethodEntity, false);
+             MappingIterator<Object[]> fileParams = feed == null ? openBatchFile(dubboMethodEntity) : null) {
+            Iterator<Object[]> params = feed != null ? feedRows(feed)
+                    : fileParams != null ? fileParams : Arrays.asList(dubboMethodEntity.getBatch()).iterator();
+            while (!breaker.isOpen() && params.hasNext()) {
+                Object[] param = params.next();
+                permits.acquire();
+                if (breaker.isOpen()) {
+                    permits.release();
+                    break;
+                }
+                try {
+                    invocation.acquireRateLimit();
+                } catch (CancellationException e) {
+                    permits.release();
+                    throw new InterruptedException(e.getMessage());
+                }
+                int current = index++;
+                //等待限流的时间不计入耗时
+                long start = System.nanoTime();
+                CompletableFuture<Object> future = invocation.invokeAsyncAcquired(param == null ? new Object[]{} : param);
+                inflight.add(future);
+                future.whenComplete((result, throwable) -> {
+                    inflight.remove(future);
+                    breaker.record(throwable);
+                    try {
+                        this.listener.onResult(current, param, result, throwable, System.nanoTime() - start);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            //等待在途的请求全部结束
+            permits.acquire(depth);
+        } catch (InterruptedException e) {
+            for (CompletableFuture<Object> future : inflight) {
+                future.cancel(true);
+            }
+            throw e;
+        } finally {
+            this.abortReason = breaker.getReason();
+        }
+        return index;
+    }
+
+    /**
+     * 上一次执行熔断中止的原因
+     *
+     * @return 未中止时为 null
+     */
+    public String getAbortReason() {
+        return this.abortReason;
+    }
+
+    private static Iterator<Object[]> feedRows(ParamFeed feed) {
+        return new Iterator<Object[]>() {
+
+            private Object[] next = feed.next();
+
+            @Override
+            public boolean hasNext() {
+                return this.next != null;
+            }
+
+            @Override
+            public Object[] next() {
+                if (this.next == null) {
+                    throw new NoSuchElementException();
+                }
+                Object[] current = this.next;
+                this.next = feed.next();
+                return current;
+            }
+        };
+    }
+
+    private static MappingIterator<Object[]> openBatchFile(DubboMethodEntity dubboMethodEntity) throws IOException {
+        if (dubboMethodEntity.getBatch() != null) {
+            return null;
+        }
+        File file = new File(dubboMethodEntity.getBatchFile().trim());
+        ObjectReader reader = Json.mapper().readerFor(Object[].class);
+        if (file.getName().endsWith(".jsonl")) {
+            //不展开第一个数组, 每个根节点是一组参数
+            JsonParser parser = Json.mapper().getFactory().createParser(file);
+            return reader.readValues(parser);
+        }
+        //根节点是数组时按元素迭代
+        return reader.readValues(file);
+    }
+
+    /**
+     * 单个请求结束的回调, 在 dubbo 的线程中执行
+     */
+    public interface Listener {
+
+        /**
+         * On result
+         *
+         * @param index     参数序号, 从 0 开始
+         * @param param     param
+         * @param result    result, 失败时为 null
+         * @param throwable throwable, 成功时为 null
+         * @param nanos     耗时(ns)
+         */
+        void onResult(int index, Object[] param, Object result, Throwable throwable, long nanos);
+    }
+}
@@ -0,0 +1,154 @@
+package com.yanglx.dubbo.test.load;
+
+import com.yanglx.dubbo.test.dubbo.FailureType;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户端熔断: 按秒统计最近 {@link #WINDOW_SECONDS} 秒的调用, 错误率或超时率达到阈值后打开, 打开后不再关闭.
+ * 成功的调用只累加计数, 失败时才计算比例. 可以被多个线程同时调用
+ */
+public class CircuitBreaker {
+
+    /**
+     * 统计窗口(秒)
+     */
+    static final int WINDOW_SECONDS = 10;
+
+    /**
+     * 窗口内至少有这么多调用才判断, 避免刚开始的几个失败就中止
+     */
+    static final int MIN_CALLS = 20;
+
+    /**
+     * 错误率阈值(%), 0 表示不检查
+     */
+    private final int errorRate;
+
+    /**
+     * 超时率阈值(%), 0 表示不检查
+     */
+    private final int timeoutRate;
+
+    private final long start = System.nanoTime();
+
+    private final Bucket[] buckets = new Bucket[WINDOW_SECONDS];
+
+    /**
+     * 打开的原因, 未打开时为 null
+     */
+    private volatile String reason;
+
+    CircuitBreaker(int errorRate, int timeoutRate) {
+        this.errorRate = errorRate;
+        this.timeoutRate = timeoutRate;
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.buckets[i] = new Bucket();
+        }
+    }
+
+    /**
+     * 记录一次调用, 取消的调用不计入
+     *
+     * @param throwable throwable, 成功时为 null
+     */
+    public void record(Throwable throwable) {
+        if (this.reason != null || (this.errorRate == 0 && this.timeoutRate == 0)) {
+            return;
+        }
+        FailureType type = throwable == null ? null : FailureType.classify(throwable);
+        if (type == FailureType.CANCELLED) {
+            return;
+        }
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - this.start);
+        Bucket bucket = this.buckets[(int) (second % WINDOW_SECONDS)];
+        bucket.roll(second);
+        bucket.calls.incrementAndGet();
+        if (type == null) {
+            return;
+        }
+        bucket.errors.incrementAndGet();
+        if (type == FailureType.TIMEOUT) {
+            bucket.timeouts.incrementAndGet();
+        }
+        this.evaluate(second);
+    }
+
+    /**
+     * 是否已经打开
+     *
+     * @return the boolean
+     */
+    public boolean isOpen() {
+        return this.reason != null;
+    }
+
+    /**
+     * 打开的原因
+     *
+     * @return 未打开时为 null
+     */
+    public String getReason() {
+        return this.reason;
+    }
+
+    private void evaluate(long second) {
+        long calls = 0;
+        long errors = 0;
+        long timeouts = 0;
+        for (Bucket bucket : this.buckets) {
+            if (bucket.second > second - WINDOW_SECONDS) {
+                calls += bucket.calls.get();
+                errors += bucket.errors.get();
+                timeouts += bucket.timeouts.get();
+            }
+        }
+        if (calls < MIN_CALLS) {
+            return;
+        }
+        if (this.timeoutRate > 0 && timeouts * 100 >= this.timeoutRate * calls) {
+            this.open("timeout rate", timeouts, calls, this.timeoutRate);
+        } else if (this.errorRate > 0 && errors * 100 >= this.errorRate * calls) {
+            this.open("error rate", errors, calls, this.errorRate);
+        }
+    }
+
+    private synchronized void open(String kind, long failures, long calls, int threshold) {
+        if (this.reason == null) {
+            this.reason = String.format("%s %d%% (%d/%d calls in %ds) reached %d%%",
+                    kind, failures * 100 / calls, failures, calls, WINDOW_SECONDS, threshold);
+        }
+    }
+
+    /**
+     * 一秒的计数
+     */
+    private static class Bucket {
+
+        private volatile long second = -1;
+
+        private final AtomicLong calls = new AtomicLong();
+
+        private final AtomicLong errors = new AtomicLong();
+
+        private final AtomicLong timeouts = new AtomicLong();
+
+        /**
+         * 进入新的一秒时清零, 同一时刻只有一个线程清零
+         */
+        void roll(long second) {
+            if (this.second == second) {
+                return;
+            }
+            synchronized (this) {
+                if (this.second != second) {
+                    this.calls.set(0);
+                    this.errors.set(0);
+                    this.timeouts.set(0);
+                    this.second = second;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.yanglx.dubbo.test.load;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * HDR 风格的延迟直方图: 按微秒记录, 每个 2 的幂区间内再线性分为 256 个桶, 相对误差不超过 0.4%.
+ * 区间的计数数组在第一次落入该区间时才创建, 实际的延迟通常只覆盖少数几个区间.
+ * 记录的值超过 1 小时按 1 小时计. 只能由一个线程写入, 多线程记录使用 {@link LatencyRecorder}
+ */
+public class LatencyHistogram {
+
+    /**
+     * 编码格式版本
+     */
+    private static final int ENCODING_VERSION = 1;
+
+    /**
+     * 每个区间的子桶数 = 2 ^ SUB_BUCKET_BITS
+     */
+    private static final int SUB_BUCKET_BITS = 9;
+
+    private static final int SUB_BUCKET_HALF_COUNT = 1 << (SUB_BUCKET_BITS - 1);
+
+    /**
+     * 最大可记录的值(微秒)
+     */
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    /**
+     * 区间数, 区间 0 包含小于 2 ^ SUB_BUCKET_BITS 的值, 之后每个区间对应一个 2 的幂
+     */
+    private static final int RANGE_COUNT = rangeOf(HIGHEST_TRACKABLE_MICROS) + 1;
+
+    private final long[][] counts = new long[RANGE_COUNT][];
+
+    private long totalCount;
+
+    private long totalMicros;
+
+    private long minMicros = Long.MAX_VALUE;
+
+    private long maxMicros;
+
+    /**
+     * 记录一次耗时, 除了第一次落入某个区间外不分配内存
+     *
+     * @param nanos nanos
+     */
+    public void recordNanos(long nanos) {
+        long micros = Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(0, nanos / 1000));
+        int range = rangeOf(micros);
+        long[] rangeCounts = this.counts[range];
+        if (rangeCounts == null) {
+            rangeCounts = new long[range == 0 ? 2 * SUB_BUCKET_HALF_COUNT : SUB_BUCKET_HALF_COUNT];
+            this.counts[range] = rangeCounts;
+        }
+        rangeCounts[offsetOf(micros, range)]++;
+        this.totalCount++;
+        this.totalMicros += micros;
+        if (micros < this.minMicros) {
+            this.minMicros = micros;
+        }
+        if (micros > this.maxMicros) {
+            this.maxMicros = micros;
+        }
+    }
+
+    /**
+     * 合并另一个直方图的记录
+     *
+     * @param other other
+     */
+    public void add(LatencyHistogram other) {
+        for (int range = 0; range < RANGE_COUNT; range++) {
+            long[] otherCounts = other.counts[range];
+            if (otherCounts == null) {
+                continue;
+            }
+            if (this.counts[range] == null) {
+                this.counts[range] = otherCounts.clone();
+                continue;
+            }
+            for (int i = 0; i < otherCounts.length; i++) {
+                this.counts[range][i] += otherCounts[i];
+            }
+        }
+        this.totalCount += other.totalCount;
+        this.totalMicros += other.totalMicros;
+        this.minMicros = Math.min(this.minMicros, other.minMicros);
+        this.maxMicros = Math.max(this.maxMicros, other.maxMicros);
+    }
+
+    public long getCount() {
+        return this.totalCount;
+    }
+
+    /**
+     * 最小值(纳秒), 没有记录时为 0
+     */
+    public long getMinNanos() {
+        return this.totalCount == 0 ? 0 : TimeUnit.MICROSECONDS.toNanos(this.minMicros);
+    }
+
+    /**
+     * 最大值(纳秒)
+     */
+    public long getMaxNanos() {
+        return TimeUnit.MICROSECONDS.toNanos(this.maxMicros);
+    }
+
+    /**
+     * 平均值(纳秒)
+     */
+    public long getMeanNanos() {
+        return this.totalCount == 0 ? 0 : TimeUnit.MICROSECONDS.toNanos(this.totalMicros / this.totalCount);
+    }
+
+    /**
+     * 百分位的值(纳秒), 取所在桶的上界, 不超过记录的最大值
+     *
+     * @param percentile 0 ~ 1
+     * @return the value in nanos
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (this.totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile * this.totalCount));
+        long seen = 0;
+        for (int range = 0; range < RANGE_COUNT; range++) {
+            long[] rangeCounts = this.counts[range];
+            if (rangeCounts == null) {
+                continue;
+            }
+            for (int offset = 0; offset < rangeCounts.length; offset++) {
+                seen += rangeCounts[offset];
+                if (seen >= rank) {
+                    return TimeUnit.MICROSECONDS.toNanos(Math.min(highestEquivalentValue(range, offset), this.maxMicros));
+                }
+            }
+        }
+        return this.getMaxNanos();
+    }
+
+    /**
+     * 编码为紧凑的文本: 连续的空桶合并为一个负数, 计数使用 zigzag 变长整数, 再 deflate 压缩后 base64 编码
+     *
+     * @return the encoded histogram
+     */
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(bytes)) {
+            writeVarLong(out, ENCODING_VERSION);
+            writeVarLong(out, SUB_BUCKET_BITS);
+            writeVarLong(out, this.totalCount == 0 ? 0 : this.minMicros);
+            writeVarLong(out, this.maxMicros);
+            writeVarLong(out, this.totalMicros);
+            int zeros = 0;
+            for (int range = 0; range < RANGE_COUNT; range++) {
+                long[] rangeCounts = this.counts[range];
+                if (rangeCounts == null) {
+                    zeros += range == 0 ? 2 * SUB_BUCKET_HALF_COUNT : SUB_BUCKET_HALF_COUNT;
+                    continue;
+                }
+                for (long count : rangeCounts) {
+                    if (count == 0) {
+                        zeros++;
+                        continue;
+                    }
+                    if (zeros > 0) {
+                        writeVarLong(out, zigzag(-zeros));
+                        zeros = 0;
+                    }
+                    writeVarLong(out, zigzag(count));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * 解码 {@link #encode()} 的结果
+     *
+     * @param encoded encoded
+     * @return the latency histogram
+     */
+    public static LatencyHistogram decode(String encoded) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        byte[] bytes = Base64.getDecoder().decode(encoded);
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+            long version = readVarLong(in);
+            long subBucketBits = readVarLong(in);
+            if (version != ENCODING_VERSION || subBucketBits != SUB_BUCKET_BITS) {
+                throw new IllegalArgumentException("Unsupported histogram encoding: v" + version + "/" + subBucketBits);
+            }
+            long min = readVarLong(in);
+            histogram.maxMicros = readVarLong(in);
+            histogram.totalMicros = readVarLong(in);
+            int index = 0;
+            int first;
+            while ((first = in.read()) != -1) {
+                long value = unzigzag(readVarLong(in, first));
+                if (value < 0) {
+                    index += (int) -value;
+                    continue;
+                }
+                //按编码时的顺序, 区间 0 占前 2 * SUB_BUCKET_HALF_COUNT 个位置
+                int range = index < 2 * SUB_BUCKET_HALF_COUNT ? 0 : index / SUB_BUCKET_HALF_COUNT - 1;
+                int offset = range == 0 ? index : index - (range + 1) * SUB_BUCKET_HALF_COUNT;
+                if (range >= RANGE_COUNT) {
+                    throw new IllegalArgumentException("Histogram bucket out of range: " + index);
+                }
+                if (histogram.counts[range] == null) {
+                    histogram.counts[range] = new long[range == 0 ? 2 * SUB_BUCKET_HALF_COUNT : SUB_BUCKET_HALF_COUNT];
+                }
+                histogram.counts[range][offset] = value;
+                histogram.totalCount += value;
+                index++;
+            }
+            histogram.minMicros = histogram.totalCount == 0 ? Long.MAX_VALUE : min;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return histogram;
+    }
+
+    /**
+     * 值所在的区间: 小于 2 ^ SUB_BUCKET_BITS 的值在区间 0, 每个值一个桶, 之后每个 2 的幂一个区间, 各 SUB_BUCKET_HALF_COUNT 个桶
+     */
+    static int rangeOf(long micros) {
+        int msb = 63 - Long.numberOfLeadingZeros(micros | 1);
+        return Math.max(0, msb - (SUB_BUCKET_BITS - 1));
+    }
+
+    static int offsetOf(long micros, int range) {
+        return range == 0 ? (int) micros : (int) (micros >> range) - SUB_BUCKET_HALF_COUNT;
+    }
+
+    /**
+     * 桶内的最大值
+     */
+    static long highestEquivalentValue(int range, int offset) {
+        if (range == 0) {
+            return offset;
+        }
+        return ((long) (offset + SUB_BUCKET_HALF_COUNT + 1) << range) - 1;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        int first = in.read();
+        if (first == -1) {
+            throw new EOFException();
+        }
+        return readVarLong(in, first);
+    }
+
+    private static long readVarLong(InputStream in, int first) throws IOException {
+        long value = first & 0x7F;
+        int shift = 7;
+        int b = first;
+        while ((b & 0x80) != 0) {
+            b = in.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+}
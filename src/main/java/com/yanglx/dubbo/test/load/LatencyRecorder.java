@@ -0,0 +1,41 @@
+package com.yanglx.dubbo.test.load;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 多线程的延迟记录: 每个线程写自己的 {@link LatencyHistogram}, 记录时不分配内存也没有线程间竞争,
+ * 生成报告时合并. 线程的直方图在第一次记录时创建, 随 recorder 一起回收
+ */
+public class LatencyRecorder {
+
+    private final Map<Thread, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos nanos
+     */
+    public void recordNanos(long nanos) {
+        Thread thread = Thread.currentThread();
+        LatencyHistogram histogram = this.histograms.get(thread);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            this.histograms.put(thread, histogram);
+        }
+        histogram.recordNanos(nanos);
+    }
+
+    /**
+     * 合并所有线程的记录. 需要在记录的线程结束记录之后调用, 例如等待所有请求完成之后
+     *
+     * @return the merged histogram
+     */
+    public LatencyHistogram merge() {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram histogram : this.histograms.values()) {
+            merged.add(histogram);
+        }
+        return merged;
+    }
+}
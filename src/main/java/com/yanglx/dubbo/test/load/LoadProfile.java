@@ -0,0 +1,156 @@
+package com.yanglx.dubbo.test.load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 开放模型的负载形状, 由若干个依次执行的 {@link LoadStage} 组成, 结果按阶段分别统计
+ */
+public class LoadProfile {
+
+    /**
+     * 稳定性压测每个统计窗口的时长(秒)
+     */
+    private static final long SOAK_WINDOW = 10 * 60;
+
+    /**
+     * Profile name
+     */
+    private final String name;
+
+    /**
+     * Stages
+     */
+    private final List<LoadStage> stages;
+
+    private LoadProfile(String name, List<LoadStage> stages) {
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("profile must have at least one stage");
+        }
+        this.name = name;
+        this.stages = Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * 固定速率
+     *
+     * @param rate     rate
+     * @param duration duration in seconds
+     * @return the load profile
+     */
+    public static LoadProfile constant(double rate, long duration) {
+        List<LoadStage> stages = new ArrayList<>();
+        stages.add(new LoadStage(format(rate) + " rps", rate, rate, duration));
+        return new LoadProfile("constant", stages);
+    }
+
+    /**
+     * 线性爬坡
+     *
+     * @param fromRate from rate
+     * @param toRate   to rate
+     * @param duration duration in seconds
+     * @return the load profile
+     */
+    public static LoadProfile ramp(double fromRate, double toRate, long duration) {
+        List<LoadStage> stages = new ArrayList<>();
+        stages.add(new LoadStage(format(fromRate) + " -> " + format(toRate) + " rps", fromRate, toRate, duration));
+        return new LoadProfile("ramp", stages);
+    }
+
+    /**
+     * 阶梯: 从 startRate 开始, 每 stepDuration 秒增加 stepRate, 直到 maxRate
+     *
+     * @param startRate    start rate
+     * @param stepRate     step rate
+     * @param stepDuration step duration in seconds
+     * @param maxRate      max rate
+     * @return the load profile
+     */
+    public static LoadProfile step(double startRate, double stepRate, long stepDuration, double maxRate) {
+        if (stepRate <= 0) {
+            throw new IllegalArgumentException("step rate must be positive");
+        }
+        List<LoadStage> stages = new ArrayList<>();
+        for (double rate = startRate; rate <= maxRate; rate += stepRate) {
+            stages.add(new LoadStage("step " + (stages.size() + 1) + ": " + format(rate) + " rps", rate, rate, stepDuration));
+        }
+        return new LoadProfile("step", stages);
+    }
+
+    /**
+     * 突刺: 以 baseRate 运行, 中间 spikeDuration 秒突增到 spikeRate
+     *
+     * @param baseRate      base rate
+     * @param spikeRate     spike rate
+     * @param duration      total duration in seconds
+     * @param spikeDuration spike duration in seconds
+     * @return the load profile
+     */
+    public static LoadProfile spike(double baseRate, double spikeRate, long duration, long spikeDuration) {
+        if (spikeDuration <= 0 || spikeDuration >= duration) {
+            throw new IllegalArgumentException("spike duration must be positive and shorter than the duration");
+        }
+        long before = (duration - spikeDuration) / 2;
+        long after = duration - spikeDuration - before;
+        List<LoadStage> stages = new ArrayList<>();
+        if (before > 0) {
+            stages.add(new LoadStage("before spike: " + format(baseRate) + " rps", baseRate, baseRate, before));
+        }
+        stages.add(new LoadStage("spike: " + format(spikeRate) + " rps", spikeRate, spikeRate, spikeDuration));
+        stages.add(new LoadStage("after spike: " + format(baseRate) + " rps", baseRate, baseRate, after));
+        return new LoadProfile("spike", stages);
+    }
+
+    /**
+     * 稳定性压测: 长时间固定速率, 每 10 分钟一个统计窗口, 用于观察延迟随时间的变化
+     *
+     * @param rate     rate
+     * @param duration duration in seconds
+     * @return the load profile
+     */
+    public static LoadProfile soak(double rate, long duration) {
+        List<LoadStage> stages = new ArrayList<>();
+        for (long offset = 0; offset < duration; offset += SOAK_WINDOW) {
+            long window = Math.min(SOAK_WINDOW, duration - offset);
+            stages.add(new LoadStage("window " + (stages.size() + 1) + ": " + offset + "s ~ " + (offset + window) + "s",
+                    rate, rate, window));
+        }
+        return new LoadProfile("soak", stages);
+    }
+
+    private static String format(double rate) {
+        return rate == Math.rint(rate) ? String.valueOf((long) rate) : String.valueOf(rate);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<LoadStage> getStages() {
+        return stages;
+    }
+
+    /**
+     * 总请求数
+     */
+    public long getRequests() {
+        long requests = 0;
+        for (LoadStage stage : this.stages) {
+            requests += stage.getRequests();
+        }
+        return requests;
+    }
+
+    /**
+     * 总时长(秒)
+     */
+    public long getDuration() {
+        long duration = 0;
+        for (LoadStage stage : this.stages) {
+            duration += stage.getDuration();
+        }
+        return duration;
+    }
+}
@@ -0,0 +1,16 @@
+package com.yanglx.dubbo.test.load;
+
+/**
+ * 压测执行器
+ */
+public interface LoadRunner {
+
+    /**
+     * 执行压测, 阻塞直到所有请求结束
+     *
+     * @param workloadMix workload mix, 单个方法使用 {@link WorkloadMix#single}
+     * @return the load test report
+     * @throws InterruptedException interrupted
+     */
+    LoadTestReport run(WorkloadMix workloadMix) throws InterruptedException;
+}
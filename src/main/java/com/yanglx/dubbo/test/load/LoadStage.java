@@ -0,0 +1,74 @@
+package com.yanglx.dubbo.test.load;
+
+/**
+ * 压测阶段: 在 duration 秒内发送速率从 startRate 线性变化到 endRate
+ */
+public class LoadStage {
+
+    /**
+     * Stage name
+     */
+    private final String name;
+
+    /**
+     * Requests per second at the beginning
+     */
+    private final double startRate;
+
+    /**
+     * Requests per second at the end
+     */
+    private final double endRate;
+
+    /**
+     * Duration in seconds
+     */
+    private final long duration;
+
+    public LoadStage(String name, double startRate, double endRate, long duration) {
+        if (startRate < 0 || endRate < 0 || duration <= 0) {
+            throw new IllegalArgumentException("rate must not be negative and duration must be positive");
+        }
+        this.name = name;
+        this.startRate = startRate;
+        this.endRate = endRate;
+        this.duration = duration;
+    }
+
+    /**
+     * 本阶段发送的请求数
+     */
+    public long getRequests() {
+        return (long) Math.floor((this.startRate + this.endRate) / 2 * this.duration);
+    }
+
+    /**
+     * 第 n 个请求(从 0 开始)相对本阶段开始的计划发送时间(秒), 即发送速率积分等于 n 的时间点
+     *
+     * @param n n
+     * @return the seconds
+     */
+    public double arrivalTime(long n) {
+        double acceleration = (this.endRate - this.startRate) / this.duration;
+        if (acceleration == 0) {
+            return n / this.startRate;
+        }
+        return (Math.sqrt(this.startRate * this.startRate + 2 * acceleration * n) - this.startRate) / acceleration;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getStartRate() {
+        return startRate;
+    }
+
+    public double getEndRate() {
+        return endRate;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+}
@@ -0,0 +1,335 @@
+package com.yanglx.dubbo.test.load;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测结果, 时间单位均为毫秒
+ */
+public class LoadTestReport {
+
+    public static final String MODEL_CLOSED = "closed";
+
+    public static final String MODEL_OPEN = "open";
+
+    /**
+     * Load model, closed: 固定并发循环调用, open: 按固定速率发送
+     */
+    private String model;
+
+    /**
+     * Target requests per second, 仅开放模型
+     */
+    private Double targetRate;
+
+    /**
+     * Load profile name, 仅开放模型
+     */
+    private String profile;
+
+    /**
+     * Stage name, 仅阶段报告
+     */
+    private String stage;
+
+    /**
+     * Entry name, 仅组合压测中每一项的报告
+     */
+    private String name;
+
+    /**
+     * Entry weight
+     */
+    private Integer weight;
+
+    /**
+     * Requests
+     */
+    private long requests;
+
+    /**
+     * Errors
+     */
+    private long errors;
+
+    /**
+     * Error rate, 0 ~ 1
+     */
+    private double errorRate;
+
+    /**
+     * Concurrency
+     */
+    private int concurrency;
+
+    /**
+     * Elapsed time
+     */
+    private double elapsed;
+
+    /**
+     * Requests per second
+     */
+    private double throughput;
+
+    /**
+     * 发送阶段的实际速率, 不包含等待在途请求结束的时间, 仅开放模型
+     */
+    private Double sendRate;
+
+    private double min;
+
+    private double mean;
+
+    private double p50;
+
+    private double p90;
+
+    private double p99;
+
+    private double p999;
+
+    private double max;
+
+    /**
+     * First error message
+     */
+    private String firstError;
+
+    /**
+     * 熔断中止的原因, 未中止时为 null
+     */
+    private String aborted;
+
+    /**
+     * Assertion reports, 响应断言的结果
+     */
+    private List<AssertionReport> assertions;
+
+    /**
+     * Response samples, 只有整体的报告包含
+     */
+    private ResponseSamples samples;
+
+    /**
+     * 完整的延迟直方图, {@link LatencyHistogram#encode()} 的结果, 可以用 {@link LatencyHistogram#decode(String)} 还原
+     */
+    private String histogram;
+
+    /**
+     * Stage reports, 按阶段统计的结果
+     */
+    private List<LoadTestReport> stages;
+
+    /**
+     * Entry reports, 组合压测中每一项的结果
+     */
+    private List<LoadTestReport> entries;
+
+    /**
+     * 根据延迟直方图生成报告
+     *
+     * @param histogram     latency histogram
+     * @param errors        errors
+     * @param elapsedNanos  elapsed nanos
+     * @param concurrency   concurrency, 开放模型时为峰值在途请求数
+     * @param firstError    first error
+     * @return the load test report
+     */
+    public static LoadTestReport of(LatencyHistogram histogram, long errors, long elapsedNanos, int concurrency, Throwable firstError) {
+        LoadTestReport report = new LoadTestReport();
+        long requests = histogram.getCount();
+        report.model = MODEL_CLOSED;
+        report.requests = requests;
+        report.errors = errors;
+        report.errorRate = requests == 0 ? 0 : (double) errors / requests;
+        report.concurrency = concurrency;
+        report.elapsed = toMillis(elapsedNanos);
+        report.throughput = elapsedNanos == 0 ? 0 : requests * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        report.min = toMillis(histogram.getMinNanos());
+        report.mean = toMillis(histogram.getMeanNanos());
+        report.p50 = toMillis(histogram.getValueAtPercentile(0.5));
+        report.p90 = toMillis(histogram.getValueAtPercentile(0.9));
+        report.p99 = toMillis(histogram.getValueAtPercentile(0.99));
+        report.p999 = toMillis(histogram.getValueAtPercentile(0.999));
+        report.max = toMillis(histogram.getMaxNanos());
+        report.histogram = histogram.encode();
+        if (firstError != null) {
+            report.firstError = firstError.getClass().getName() + ": " + firstError.getMessage();
+        }
+        return report;
+    }
+
+    /**
+     * 标记为开放模型的报告, 延迟从计划发送时间开始计算
+     *
+     * @param targetRate target rate
+     * @return the load test report
+     */
+    LoadTestReport openModel(double targetRate) {
+        this.model = MODEL_OPEN;
+        this.targetRate = targetRate;
+        return this;
+    }
+
+    /**
+     * 发送阶段的实际速率
+     *
+     * @param sent      sent requests
+     * @param sendNanos 开始发送到发出最后一个请求的时间
+     * @return the load test report
+     */
+    LoadTestReport sendRate(long sent, long sendNanos) {
+        this.sendRate = sendNanos == 0 ? 0 : sent * (double) TimeUnit.SECONDS.toNanos(1) / sendNanos;
+        return this;
+    }
+
+    LoadTestReport profile(String profile, List<LoadTestReport> stages) {
+        this.profile = profile;
+        this.stages = stages;
+        return this;
+    }
+
+    LoadTestReport stage(String stage) {
+        this.stage = stage;
+        return this;
+    }
+
+    LoadTestReport entry(String name, int weight) {
+        this.name = name;
+        this.weight = weight;
+        return this;
+    }
+
+    LoadTestReport entries(List<LoadTestReport> entries) {
+        this.entries = entries;
+        return this;
+    }
+
+    LoadTestReport assertions(List<AssertionReport> assertions) {
+        this.assertions = assertions;
+        return this;
+    }
+
+    LoadTestReport samples(ResponseSamples samples) {
+        this.samples = samples;
+        return this;
+    }
+
+    LoadTestReport aborted(String aborted) {
+        this.aborted = aborted;
+        return this;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public Double getTargetRate() {
+        return targetRate;
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Integer getWeight() {
+        return weight;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public double getElapsed() {
+        return elapsed;
+    }
+
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public Double getSendRate() {
+        return sendRate;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP90() {
+        return p90;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getP999() {
+        return p999;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public String getFirstError() {
+        return firstError;
+    }
+
+    public String getAborted() {
+        return aborted;
+    }
+
+    public List<AssertionReport> getAssertions() {
+        return assertions;
+    }
+
+    public ResponseSamples getSamples() {
+        return samples;
+    }
+
+    public String getHistogram() {
+        return histogram;
+    }
+
+    public List<LoadTestReport> getStages() {
+        return stages;
+    }
+
+    public List<LoadTestReport> getEntries() {
+        return entries;
+    }
+}
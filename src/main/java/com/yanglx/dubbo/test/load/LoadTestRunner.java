@@ -0,0 +1,127 @@
+package com.yanglx.dubbo.test.load;
+
+import com.yanglx.dubbo.test.PluginThreadFactory;
+import com.yanglx.dubbo.test.dubbo.DubboApiLocator;
+import com.yanglx.dubbo.test.dubbo.PreparedInvocation;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 压测: concurrency 个线程循环调用, 每次按权重从 {@link WorkloadMix} 中选择方法, 直到发出 requests 次请求.
+ * 熔断器打开时不再发出新的请求
+ */
+public class LoadTestRunner implements LoadRunner {
+
+    /**
+     * 最大并发数, 每个并发一个线程
+     */
+    public static final int MAX_CONCURRENCY = 1000;
+
+    /**
+     * Dubbo api locator
+     */
+    private final DubboApiLocator dubboApiLocator;
+
+    /**
+     * Total requests
+     */
+    private final int requests;
+
+    /**
+     * Concurrency
+     */
+    private final int concurrency;
+
+    /**
+     * Abort policy
+     */
+    private final AbortPolicy abortPolicy;
+
+    public LoadTestRunner(DubboApiLocator dubboApiLocator, int requests, int concurrency, AbortPolicy abortPolicy) {
+        if (requests <= 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("requests and concurrency must be positive");
+        }
+        this.dubboApiLocator = dubboApiLocator;
+        this.requests = requests;
+        this.concurrency = Math.min(Math.min(concurrency, requests), MAX_CONCURRENCY);
+        this.abortPolicy = abortPolicy;
+    }
+
+    @Override
+    public LoadTestReport run(WorkloadMix workloadMix) throws InterruptedException {
+        PreparedInvocation[] invocations = workloadMix.prepare(this.dubboApiLocator);
+        LatencyRecorder recorder = new LatencyRecorder();
+        LatencyRecorder[] entryRecorders = workloadMix.newRecorders();
+        AtomicLongArray entryErrors = new AtomicLongArray(invocations.length);
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(this.concurrency);
+        ResponseAssertions[] assertions = workloadMix.compileAssertions();
+        ResponseSampler sampler = workloadMix.newSampler();
+        CircuitBreaker breaker = this.abortPolicy.newBreaker();
+        ParamFeed[] feeds = workloadMix.openFeeds();
+
+        //失败后重新创建引用也在这些线程中, 需要插件的 classloader
+        ExecutorService workers = Executors.newFixedThreadPool(this.concurrency, new PluginThreadFactory("load"));
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < this.concurrency; i++) {
+                workers.execute(() -> {
+                    try {
+                        while (!Thread.currentThread().isInterrupted() && !breaker.isOpen()
+                                && next.getAndIncrement() < this.requests) {
+                            int entry = workloadMix.pick();
+                            long begin = System.nanoTime();
+                            Object[] param = null;
+                            Object result = null;
+                            Exception failure = null;
+                            try {
+                                param = feeds[entry] == null ? null : feeds[entry].next();
+                                invocations[entry].acquireRateLimit();
+                                //读取参数和等待限流的时间不计入延迟
+                                begin = System.nanoTime();
+                                result = invocations[entry].invokeAcquired(param);
+                            } catch (CancellationException e) {
+                                //停止时中断了限流等待, 没有发出请求, 不计入结果
+                                Thread.currentThread().interrupt();
+                                break;
+                            } catch (Exception e) {
+                                failure = e;
+                                errors.incrementAndGet();
+                                entryErrors.incrementAndGet(entry);
+                                firstError.compareAndSet(null, e);
+                            }
+                            long latency = System.nanoTime() - begin;
+                            recorder.recordNanos(latency);
+                            entryRecorders[entry].recordNanos(latency);
+                            if (failure == null && assertions[entry] != null) {
+                                assertions[entry].check(result);
+                            }
+                            sampler.record(entry, param, result, failure, latency);
+                            breaker.record(failure);
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+            }
+            latch.await();
+        } finally {
+            workers.shutdownNow();
+            WorkloadMix.closeFeeds(feeds);
+        }
+        long elapsed = System.nanoTime() - start;
+        return LoadTestReport.of(recorder.merge(), errors.get(), elapsed, this.concurrency, firstError.get())
+                .entries(workloadMix.entryReports(entryRecorders, entryErrors, elapsed, this.concurrency))
+                .assertions(workloadMix.assertionReports(assertions))
+                .samples(sampler.snapshot())
+                .aborted(breaker.getReason());
+    }
+}
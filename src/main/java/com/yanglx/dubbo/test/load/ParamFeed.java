@@ -0,0 +1,242 @@
+package com.yanglx.dubbo.test.load;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.yanglx.dubbo.test.dubbo.DubboMethodEntity;
+import com.yanglx.dubbo.test.utils.Json;
+import com.yanglx.dubbo.test.utils.StrUtils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 参数数据源: 从 CSV 或 JSONL 文件中逐行读取, 填充到 {@link RequestTemplate} 的 ${列名} 槽位.
+ * 文件按行流式读取, 只持有当前行, 不会加载到内存. CSV 的第一行是列名, 值都是字符串, 可以在占位符中指定类型;
+ * JSONL 每行一个对象, 值保持原来的类型. 没有文件时只填充 seq, random, uuid 等生成的值.
+ * 多个线程可以同时调用 {@link #next()}
+ */
+public class ParamFeed implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Feed file
+     */
+    private final File file;
+
+    /**
+     * Request template
+     */
+    private final RequestTemplate template;
+
+    /**
+     * 读到文件末尾时是否从头开始
+     */
+    private final boolean loop;
+
+    private final boolean jsonl;
+
+    private BufferedReader csvReader;
+
+    private String[] csvHeader;
+
+    private MappingIterator<Map<String, Object>> jsonlRows;
+
+    /**
+     * 已读取的行数
+     */
+    private long rows;
+
+    private boolean closed;
+
+    /**
+     * 打开数据源
+     *
+     * @param file     .csv 或 .jsonl 文件, 为 null 时没有列, 每次调用都返回填充生成值的参数
+     * @param template request template
+     * @param loop     读到文件末尾时是否从头开始, 压测时使用
+     * @throws IOException 打开文件失败
+     */
+    public ParamFeed(File file, RequestTemplate template, boolean loop) throws IOException {
+        this.file = file;
+        this.template = template;
+        this.loop = loop;
+        this.jsonl = file != null && file.getName().endsWith(".jsonl");
+        if (file != null) {
+            this.open();
+        }
+    }
+
+    /**
+     * 编译 param 并打开 feedFile 指定的数据源
+     *
+     * @param dubboMethodEntity dubbo method entity
+     * @param loop              读到文件末尾时是否从头开始
+     * @return 没有设置 feedFile 且 param 中没有占位符时返回 null, 直接使用原来的参数
+     * @throws IOException              打开文件失败
+     * @throws IllegalArgumentException 没有设置 feedFile 时 param 引用了列
+     */
+    public static ParamFeed open(DubboMethodEntity dubboMethodEntity, boolean loop) throws IOException {
+        RequestTemplate template = RequestTemplate.compile(dubboMethodEntity.getParam());
+        if (StrUtils.isBlank(dubboMethodEntity.getFeedFile())) {
+            if (template.readsColumns()) {
+                throw new IllegalArgumentException("Param references feed columns but no feedFile is set");
+            }
+            return template.isConstant() ? null : new ParamFeed(null, template, loop);
+        }
+        return new ParamFeed(new File(dubboMethodEntity.getFeedFile().trim()), template, loop);
+    }
+
+    /**
+     * 读取下一行并绑定到参数
+     *
+     * @return 绑定后的参数, 不循环时读完返回 null
+     * @throws UncheckedIOException 读取文件失败
+     */
+    public Object[] next() {
+        if (this.file == null) {
+            return this.template.fill(RequestTemplate.EMPTY_ROW);
+        }
+        Map<String, Object> row;
+        synchronized (this) {
+            try {
+                row = this.readRow();
+                if (row == null && this.loop) {
+                    if (this.rows == 0) {
+                        throw new IllegalStateException("Param feed has no rows: " + this.file);
+                    }
+                    this.closeReaders();
+                    this.open();
+                    row = this.readRow();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return row == null ? null : this.template.fill(row);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.closed = true;
+        this.closeReaders();
+    }
+
+    private void open() throws IOException {
+        if (this.jsonl) {
+            JsonParser parser = Json.mapper().getFactory().createParser(this.file);
+            this.jsonlRows = Json.mapper().readerForMapOf(Object.class).readValues(parser);
+            return;
+        }
+        this.csvReader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(this.file.toPath()), StandardCharsets.UTF_8), BUFFER_SIZE);
+        String header = this.csvReader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("Param feed has no header: " + this.file);
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        List<String> columns = this.parseCsvLine(header);
+        this.csvHeader = columns.toArray(new String[0]);
+    }
+
+    private Map<String, Object> readRow() throws IOException {
+        if (this.closed) {
+            throw new IllegalStateException("Param feed is closed: " + this.file);
+        }
+        Map<String, Object> row;
+        if (this.jsonl) {
+            row = this.jsonlRows.hasNextValue() ? this.jsonlRows.nextValue() : null;
+        } else {
+            row = this.readCsvRow();
+        }
+        if (row != null) {
+            this.rows++;
+        }
+        return row;
+    }
+
+    private Map<String, Object> readCsvRow() throws IOException {
+        String line;
+        do {
+            line = this.csvReader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isEmpty());
+        List<String> values = this.parseCsvLine(line);
+        Map<String, Object> row = new HashMap<>(this.csvHeader.length * 4 / 3 + 1);
+        for (int i = 0; i < this.csvHeader.length; i++) {
+            row.put(this.csvHeader[i], i < values.size() ? values.get(i) : null);
+        }
+        return row;
+    }
+
+    /**
+     * 解析一行 CSV, 支持双引号包含的逗号、换行和转义的双引号("")
+     */
+    private List<String> parseCsvLine(String line) throws IOException {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                //引号中的换行, 继续读下一行
+                String nextLine = this.csvReader.readLine();
+                if (nextLine == null) {
+                    throw new IllegalArgumentException("Unterminated quote in param feed: " + this.file);
+                }
+                value.append('\n');
+                line = nextLine;
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private void closeReaders() throws IOException {
+        if (this.csvReader != null) {
+            this.csvReader.close();
+            this.csvReader = null;
+        }
+        if (this.jsonlRows != null) {
+            this.jsonlRows.close();
+            this.jsonlRows = null;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.yanglx.dubbo.test.load;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 预编译的请求参数: 解析一次 param, 把 ${...} 占位符编译为槽位, 每次调用只填充槽位, 不再重新解析 JSON.
+ * 不含占位符的部分在多次调用间共享, 只有包含槽位的对象和数组会重新创建.
+ * <ul>
+ *     <li>${列名} 或 ${列名:类型}: 数据源中当前行的值, 类型可以是 string, int, long, double, boolean</li>
+ *     <li>${seq} 或 ${seq:起始值}: 从起始值(默认 0)开始递增的序号</li>
+ *     <li>${random:最小值:最大值}: 范围内(包含两端)的随机整数</li>
+ *     <li>${uuid}: 随机 UUID</li>
+ * </ul>
+ * 整个字符串是一个占位符时填充为对应类型的值, 否则拼接为字符串. seq, random, uuid 是保留名, 不会读取同名的列
+ */
+public class RequestTemplate {
+
+    private static final String SEQ = "seq";
+
+    private static final String RANDOM = "random";
+
+    private static final String UUID_NAME = "uuid";
+
+    /**
+     * 没有数据源时使用的空行
+     */
+    static final Map<String, Object> EMPTY_ROW = Collections.emptyMap();
+
+    /**
+     * 编译后的参数, 每个元素是 {@link Node} 或不变的值
+     */
+    private final Object[] params;
+
+    /**
+     * 是否没有槽位
+     */
+    private final boolean constant;
+
+    private RequestTemplate(Object[] params, boolean constant) {
+        this.params = params;
+        this.constant = constant;
+    }
+
+    /**
+     * 编译参数
+     *
+     * @param param param
+     * @return the request template
+     * @throws IllegalArgumentException 占位符格式错误
+     */
+    public static RequestTemplate compile(Object[] param) {
+        Object[] source = param == null ? new Object[]{} : param;
+        Object[] params = new Object[source.length];
+        boolean constant = true;
+        for (int i = 0; i < source.length; i++) {
+            params[i] = compileValue(source[i]);
+            constant &= !(params[i] instanceof Node);
+        }
+        return new RequestTemplate(params, constant);
+    }
+
+    /**
+     * 是否不包含占位符, 不包含时可以直接使用原来的参数
+     */
+    public boolean isConstant() {
+        return this.constant;
+    }
+
+    /**
+     * 是否有 ${列名} 槽位, 有时需要数据源
+     */
+    public boolean readsColumns() {
+        return readsColumn(this.params);
+    }
+
+    /**
+     * 填充槽位, 可以被多个线程同时调用
+     *
+     * @param row 数据源的当前行, 没有数据源时为空 map
+     * @return 新的参数数组
+     * @throws IllegalArgumentException 行中没有占位符引用的列, 或值不能转换为槽位的类型
+     */
+    public Object[] fill(Map<String, Object> row) {
+        Object[] filled = new Object[this.params.length];
+        for (int i = 0; i < filled.length; i++) {
+            filled[i] = fillValue(this.params[i], row);
+        }
+        return filled;
+    }
+
+    private static Object fillValue(Object value, Map<String, Object> row) {
+        return value instanceof Node ? ((Node) value).fill(row) : value;
+    }
+
+    private static boolean readsColumn(Object[] values) {
+        for (Object value : values) {
+            if (value instanceof Node && ((Node) value).readsColumn()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object compileValue(Object value) {
+        if (value instanceof String) {
+            return compileString((String) value);
+        }
+        if (value instanceof Object[] || value instanceof List) {
+            List<?> list = value instanceof Object[] ? Arrays.asList((Object[]) value) : (List<?>) value;
+            Object[] items = new Object[list.size()];
+            boolean hasSlot = false;
+            for (int i = 0; i < items.length; i++) {
+                items[i] = compileValue(list.get(i));
+                hasSlot |= items[i] instanceof Node;
+            }
+            if (!hasSlot) {
+                return value;
+            }
+            return value instanceof Object[] ? new ArrayNode(items) : new ListNode(items);
+        }
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Object[] keys = new Object[map.size()];
+            Object[] values = new Object[map.size()];
+            boolean hasSlot = false;
+            int i = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                keys[i] = entry.getKey();
+                values[i] = compileValue(entry.getValue());
+                hasSlot |= values[i] instanceof Node;
+                i++;
+            }
+            return hasSlot ? new MapNode(keys, values) : value;
+        }
+        return value;
+    }
+
+    private static Object compileString(String value) {
+        int start = value.indexOf("${");
+        int end = start < 0 ? -1 : value.indexOf('}', start);
+        if (end < 0) {
+            return value;
+        }
+        if (start == 0 && end == value.length() - 1) {
+            return compileSlot(value.substring(2, end));
+        }
+        List<Object> parts = new ArrayList<>();
+        int from = 0;
+        while (end > start) {
+            if (start > from) {
+                parts.add(value.substring(from, start));
+            }
+            parts.add(compileSlot(value.substring(start + 2, end)));
+            from = end + 1;
+            start = value.indexOf("${", from);
+            end = start < 0 ? -1 : value.indexOf('}', start);
+        }
+        if (from < value.length()) {
+            parts.add(value.substring(from));
+        }
+        return new ConcatNode(parts.toArray());
+    }
+
+    private static Node compileSlot(String expression) {
+        String[] args = expression.split(":", -1);
+        String name = args[0].trim();
+        try {
+            if (SEQ.equals(name) && args.length <= 2) {
+                return new SeqNode(args.length == 2 ? Long.parseLong(args[1].trim()) : 0);
+            }
+            if (RANDOM.equals(name) && args.length == 3) {
+                long min = Long.parseLong(args[1].trim());
+                long max = Long.parseLong(args[2].trim());
+                if (min > max || max == Long.MAX_VALUE) {
+                    throw new IllegalArgumentException("Invalid random range: ${" + expression + "}");
+                }
+                return new RandomNode(min, max);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid placeholder: ${" + expression + "}", e);
+        }
+        if (UUID_NAME.equals(name) && args.length == 1) {
+            return new UuidNode();
+        }
+        if (SEQ.equals(name) || RANDOM.equals(name) || UUID_NAME.equals(name) || args.length > 2 || name.isEmpty()) {
+            throw new IllegalArgumentException("Invalid placeholder: ${" + expression + "}");
+        }
+        return new ColumnNode(name, args.length == 2 ? SlotType.of(args[1].trim(), expression) : SlotType.RAW);
+    }
+
+    /**
+     * 编译后的节点
+     */
+    private interface Node {
+
+        Object fill(Map<String, Object> row);
+
+        /**
+         * 是否引用数据源的列
+         */
+        default boolean readsColumn() {
+            return false;
+        }
+    }
+
+    private static class ArrayNode implements Node {
+
+        private final Object[] items;
+
+        ArrayNode(Object[] items) {
+            this.items = items;
+        }
+
+        @Override
+        public Object fill(Map<String, Object> row) {
+            Object[] filled = new Object[this.items.length];
+            for (int i = 0; i < filled.length; i++) {
+                filled[i] = fillValue(this.items[i], row);
+            }
+            return filled;
+        }
+
+        @Override
+        public boolean readsColumn() {
+            return RequestTemplate.readsColumn(this.items);
+        }
+    }
+
+    private static class ListNode implements Node {
+
+        private final Object[] items;
+
+        ListNode(Object[] items) {
+            this.items = items;
+        }
+
+        @Override
+        public Object fill(Map<String, Object> row) {
+            List<Object> filled = new ArrayList<>(this.items.length);
+            for (Object item : this.items) {
+                filled.add(fillValue(item, row));
+            }
+            return filled;
+        }
+
+        @Override
+        public boolean readsColumn() {
+            return RequestTemplate.readsColumn(this.items);
+        }
+    }
+
+    private static class MapNode implements Node {
+
+        private final Object[] keys;
+
+        private final Object[] values;
+
+        MapNode(Object[] keys, Object[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        public Object fill(Map<String, Object> row) {
+            Map<Object, Object> filled = new LinkedHashMap<>(this.keys.length * 4 / 3 + 1);
+            for (int i = 0; i < this.keys.length; i++) {
+                filled.put(this.keys[i], fillValue(this.values[i], row));
+            }
+            return filled;
+        }
+
+        @Override
+        public boolean readsColumn() {
+            return RequestTemplate.readsColumn(this.values);
+        }
+    }
+
+    private static class ConcatNode implements Node {
+
+        private final Object[] parts;
+
+        ConcatNode(Object[] parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        public Object fill(Map<String, Object> row) {
+            StringBuilder builder = new StringBuilder(32);
+            for (Object part : this.parts) {
+                builder.append(fillValue(part, row));
+            }
+            return builder.toString();
+        }
+
+        @Override
+        public boolean readsColumn() {
+            return RequestTemplate.readsColumn(this.parts);
+        }
+    }
+
+    private static class ColumnNode implements Node {
+
+        private final String name;
+
+        private final SlotType type;
+
+        ColumnNode(String name, SlotType type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        @Override
+        public Object fill(Map<String, Object> row) {
+            Object value = row.get(this.name);
+            if (value == null && !row.containsKey(this.name)) {
+                throw new IllegalArgumentException("Unknown param feed column: " + this.name);
+            }
+            return this.type.convert(value, this.name);
+        }
+
+        @Override
+        public boolean readsColumn() {
+            return true;
+        }
+    }
+
+    private static class SeqNode implements Node {
+
+        private final AtomicLong next;
+
+        SeqNode(long start) {
+            this.next = new AtomicLong(start);
+        }
+
+        @Override
+        public Object fill(Map<String, Object> row) {
+            return this.next.getAndIncrement();
+        }
+    }
+
+    private static class RandomNode implements Node {
+
+        private final long min;
+
+        private final long max;
+
+        RandomNode(long min, long max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public Object fill(Map<String, Object> row) {
+            return ThreadLocalRandom.current().nextLong(this.min, this.max + 1);
+        }
+    }
+
+    /**
+     * 使用 ThreadLocalRandom 生成 v4 UUID, 避免 {@link UUID#randomUUID()} 的 SecureRandom 开销和竞争
+     */
+    private static class UuidNode implements Node {
+
+        @Override
+        public Object fill(Map<String, Object> row) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long most = (random.nextLong() & ~0xF000L) | 0x4000L;
+            long least = (random.nextLong() & ~(0xC000L << 48)) | (0x8000L << 48);
+            return new UUID(most, least).toString();
+        }
+    }
+
+    /**
+     * 列槽位的类型
+     */
+    private enum SlotType {
+        RAW, STRING, INT, LONG, DOUBLE, BOOLEAN;
+
+        static SlotType of(String name, String expression) {
+            for (SlotType type : values()) {
+                if (type != RAW && type.name().equalsIgnoreCase(name)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown placeholder type: ${" + expression + "}");
+        }
+
+        Object convert(Object value, String column) {
+            if (value == null || this == RAW) {
+                return value;
+            }
+            String text = value.toString().trim();
+            try {
+                switch (this) {
+                    case STRING:
+                        return value.toString();
+                    case INT:
+                        return value instanceof Integer ? value : Integer.valueOf(text);
+                    case LONG:
+                        return value instanceof Long ? value : Long.valueOf(text);
+                    case DOUBLE:
+                        return value instanceof Double ? value : Double.valueOf(text);
+                    case BOOLEAN:
+                        return value instanceof Boolean ? value : Boolean.valueOf(text);
+                    default:
+                        return value;
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Column " + column + " is not " + this.name().toLowerCase() + ": " + text);
+            }
+        }
+    }
+}
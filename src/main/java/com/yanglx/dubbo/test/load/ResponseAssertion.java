@@ -0,0 +1,261 @@
+package com.yanglx.dubbo.test.load;
+
+import com.yanglx.dubbo.test.utils.Json;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 响应断言, 编译一次后对每个结果求值. 格式为 "路径 操作符 值" 或只有路径:
+ * <ul>
+ *     <li>路径: $ 表示结果, .name 或 ['name'] 取字段, [0] 取下标, .size() 或 .length() 取长度</li>
+ *     <li>操作符: ==, !=, &gt;, &gt;=, &lt;, &lt;=</li>
+ *     <li>值: 数字, 'string' 或 "string", true, false, null</li>
+ * </ul>
+ * 只有路径时, 值存在且不为 false 即通过. 例如 {@code $.code == 0}, {@code $.data.list.size() > 0}
+ */
+public class ResponseAssertion {
+
+    private static final String[] OPERATORS = {"==", "!=", ">=", "<=", ">", "<"};
+
+    private static final Object SIZE = new Object();
+
+    /**
+     * Expression
+     */
+    private final String expression;
+
+    /**
+     * 路径的每一段: 字段名, 下标或 {@link #SIZE}
+     */
+    private final Object[] path;
+
+    /**
+     * Operator, 只有路径时为 null
+     */
+    private final String operator;
+
+    /**
+     * Expected value
+     */
+    private final Object expected;
+
+    private ResponseAssertion(String expression, Object[] path, String operator, Object expected) {
+        this.expression = expression;
+        this.path = path;
+        this.operator = operator;
+        this.expected = expected;
+    }
+
+    /**
+     * 编译断言
+     *
+     * @param expression expression
+     * @return the response assertion
+     * @throws IllegalArgumentException 格式错误
+     */
+    public static ResponseAssertion compile(String expression) {
+        String text = expression.trim();
+        if (!text.startsWith("$")) {
+            throw new IllegalArgumentException("Assertion must start with $: " + expression);
+        }
+        List<Object> path = new ArrayList<>();
+        int i = 1;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                int end = i + 1;
+                while (end < text.length() && isNameChar(text.charAt(end))) {
+                    end++;
+                }
+                String name = text.substring(i + 1, end);
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("Missing field name at " + i + ": " + expression);
+                }
+                if (text.startsWith("()", end) && ("size".equals(name) || "length".equals(name))) {
+                    path.add(SIZE);
+                    end += 2;
+                } else {
+                    path.add(name);
+                }
+                i = end;
+            } else if (c == '[') {
+                int end = text.indexOf(']', i);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Missing ] at " + i + ": " + expression);
+                }
+                String key = text.substring(i + 1, end).trim();
+                if (isQuoted(key)) {
+                    path.add(key.substring(1, key.length() - 1));
+                } else {
+                    try {
+                        path.add(Integer.parseInt(key));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid index at " + i + ": " + expression);
+                    }
+                }
+                i = end + 1;
+            } else {
+                break;
+            }
+        }
+        String rest = text.substring(i).trim();
+        if (rest.isEmpty()) {
+            return new ResponseAssertion(expression, path.toArray(), null, null);
+        }
+        for (String operator : OPERATORS) {
+            if (rest.startsWith(operator)) {
+                return new ResponseAssertion(expression, path.toArray(), operator,
+                        parseLiteral(rest.substring(operator.length()).trim(), expression));
+            }
+        }
+        throw new IllegalArgumentException("Unknown operator at " + i + ": " + expression);
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * 取路径对应的值, 不存在时为 null
+     *
+     * @param result 调用结果
+     * @return the value
+     */
+    public Object select(Object result) {
+        Object value = result;
+        for (Object segment : this.path) {
+            if (value == null) {
+                return null;
+            }
+            if (segment == SIZE) {
+                value = sizeOf(value);
+            } else if (segment instanceof Integer) {
+                value = elementAt(value, (Integer) segment);
+            } else {
+                value = value instanceof Map ? ((Map<?, ?>) value).get(segment) : null;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 判断路径的值是否满足断言
+     *
+     * @param actual {@link #select(Object)} 的结果
+     * @return the boolean
+     */
+    public boolean test(Object actual) {
+        if (this.operator == null) {
+            return actual != null && !Boolean.FALSE.equals(actual);
+        }
+        switch (this.operator) {
+            case "==":
+                return valueEquals(actual, this.expected);
+            case "!=":
+                return !valueEquals(actual, this.expected);
+            default:
+                Integer compared = compare(actual, this.expected);
+                if (compared == null) {
+                    return false;
+                }
+                switch (this.operator) {
+                    case ">":
+                        return compared > 0;
+                    case ">=":
+                        return compared >= 0;
+                    case "<":
+                        return compared < 0;
+                    default:
+                        return compared <= 0;
+                }
+        }
+    }
+
+    private static boolean valueEquals(Object actual, Object expected) {
+        if (actual == null || expected == null) {
+            return actual == expected;
+        }
+        Integer compared = compare(actual, expected);
+        return compared != null ? compared == 0 : Objects.equals(String.valueOf(actual), String.valueOf(expected));
+    }
+
+    /**
+     * 数字按数值比较, 字符串按字典序比较, 其他类型不能比较时返回 null
+     */
+    private static Integer compare(Object actual, Object expected) {
+        if (actual == null || expected == null) {
+            return null;
+        }
+        if (expected instanceof Number) {
+            BigDecimal number = toDecimal(actual);
+            return number == null ? null : number.compareTo(toDecimal(expected));
+        }
+        if (expected instanceof String && (actual instanceof String || actual instanceof Character)) {
+            return actual.toString().compareTo((String) expected);
+        }
+        return null;
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        try {
+            if (value instanceof Number || value instanceof String) {
+                return new BigDecimal(value.toString().trim());
+            }
+        } catch (NumberFormatException ignored) {
+            //不是数字
+        }
+        return null;
+    }
+
+    private static Object sizeOf(Object value) {
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        }
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).size();
+        }
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length();
+        }
+        if (value.getClass().isArray()) {
+            return Array.getLength(value);
+        }
+        return null;
+    }
+
+    private static Object elementAt(Object value, int index) {
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            return index >= 0 && index < list.size() ? list.get(index) : null;
+        }
+        if (value.getClass().isArray()) {
+            return index >= 0 && index < Array.getLength(value) ? Array.get(value, index) : null;
+        }
+        return null;
+    }
+
+    private static Object parseLiteral(String literal, String expression) {
+        if (literal.length() >= 2 && literal.startsWith("'") && literal.endsWith("'")) {
+            return literal.substring(1, literal.length() - 1);
+        }
+        try {
+            return Json.mapper().readValue(literal, Object.class);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid value: " + expression);
+        }
+    }
+
+    private static boolean isQuoted(String key) {
+        return key.length() >= 2 && (key.startsWith("'") && key.endsWith("'") || key.startsWith("\"") && key.endsWith("\""));
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '-';
+    }
+}
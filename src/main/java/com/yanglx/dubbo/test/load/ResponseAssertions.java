@@ -0,0 +1,118 @@
+package com.yanglx.dubbo.test.load;
+
+import com.yanglx.dubbo.test.utils.Json;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一组响应断言, 对每个到达的结果求值后只保留通过和失败的计数, 以及每个断言的前几个失败样本, 不保留响应.
+ * 可以被多个线程同时调用
+ */
+public class ResponseAssertions {
+
+    /**
+     * 每个断言最多保留的失败样本数
+     */
+    private static final int MAX_SAMPLES = 5;
+
+    /**
+     * 样本中实际值的最大长度
+     */
+    private static final int MAX_SAMPLE_LENGTH = 500;
+
+    private final ResponseAssertion[] assertions;
+
+    private final LongAdder[] passed;
+
+    private final LongAdder[] failed;
+
+    private final AtomicInteger[] sampleCounts;
+
+    private final List<List<String>> samples = new ArrayList<>();
+
+    private ResponseAssertions(ResponseAssertion[] assertions) {
+        this.assertions = assertions;
+        this.passed = new LongAdder[assertions.length];
+        this.failed = new LongAdder[assertions.length];
+        this.sampleCounts = new AtomicInteger[assertions.length];
+        for (int i = 0; i < assertions.length; i++) {
+            this.passed[i] = new LongAdder();
+            this.failed[i] = new LongAdder();
+            this.sampleCounts[i] = new AtomicInteger();
+            this.samples.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * 编译断言
+     *
+     * @param expressions expressions
+     * @return 没有断言时返回 null
+     * @throws IllegalArgumentException 断言格式错误
+     */
+    public static ResponseAssertions compile(String[] expressions) {
+        if (expressions == null || expressions.length == 0) {
+            return null;
+        }
+        ResponseAssertion[] assertions = new ResponseAssertion[expressions.length];
+        for (int i = 0; i < expressions.length; i++) {
+            assertions[i] = ResponseAssertion.compile(expressions[i]);
+        }
+        return new ResponseAssertions(assertions);
+    }
+
+    /**
+     * 对结果求值并计数
+     *
+     * @param result 调用结果
+     * @return 第一个失败的断言和实际值, 全部通过时返回 null
+     */
+    public String check(Object result) {
+        String firstFailure = null;
+        for (int i = 0; i < this.assertions.length; i++) {
+            ResponseAssertion assertion = this.assertions[i];
+            Object actual = assertion.select(result);
+            if (assertion.test(actual)) {
+                this.passed[i].increment();
+                continue;
+            }
+            this.failed[i].increment();
+            String failure = null;
+            if (this.sampleCounts[i].getAndIncrement() < MAX_SAMPLES) {
+                failure = sample(actual);
+                synchronized (this.samples) {
+                    this.samples.get(i).add(failure);
+                }
+            }
+            if (firstFailure == null) {
+                firstFailure = assertion.getExpression() + ", actual: " + (failure != null ? failure : sample(actual));
+            }
+        }
+        return firstFailure;
+    }
+
+    /**
+     * 当前的计数和样本
+     *
+     * @param entry 组合压测中的名称, 单个方法时为 null
+     * @return the list
+     */
+    public List<AssertionReport> report(String entry) {
+        List<AssertionReport> reports = new ArrayList<>();
+        synchronized (this.samples) {
+            for (int i = 0; i < this.assertions.length; i++) {
+                reports.add(new AssertionReport(entry, this.assertions[i].getExpression(),
+                        this.passed[i].sum(), this.failed[i].sum(), new ArrayList<>(this.samples.get(i))));
+            }
+        }
+        return reports;
+    }
+
+    private static String sample(Object actual) {
+        String text = actual instanceof String ? (String) actual : Json.stringify(actual);
+        return text.length() > MAX_SAMPLE_LENGTH ? text.substring(0, MAX_SAMPLE_LENGTH) + "..." : text;
+    }
+}
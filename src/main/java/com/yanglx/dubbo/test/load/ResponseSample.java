@@ -0,0 +1,102 @@
+package com.yanglx.dubbo.test.load;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.yanglx.dubbo.test.dubbo.DubboMethodEntity;
+
+/**
+ * 采样的一次调用, 保留参数和结果, 可以重新加载到 tab 中
+ */
+public class ResponseSample {
+
+    /**
+     * 调用序号, 从 0 开始
+     */
+    private final long index;
+
+    /**
+     * 组合压测中的名称
+     */
+    private final String entry;
+
+    /**
+     * Latency nanos
+     */
+    private final long nanos;
+
+    /**
+     * Param
+     */
+    private final Object[] param;
+
+    /**
+     * Result, 失败时为 null
+     */
+    private final Object result;
+
+    /**
+     * Error, 成功时为 null
+     */
+    private final String error;
+
+    /**
+     * 调用的方法, 参数为模板中的参数
+     */
+    private final DubboMethodEntity dubboMethodEntity;
+
+    ResponseSample(long index, String entry, long nanos, Object[] param, Object result, String error,
+                   DubboMethodEntity dubboMethodEntity) {
+        this.index = index;
+        this.entry = entry;
+        this.nanos = nanos;
+        this.param = param;
+        this.result = result;
+        this.error = error;
+        this.dubboMethodEntity = dubboMethodEntity;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public String getEntry() {
+        return entry;
+    }
+
+    /**
+     * 延迟(ms)
+     */
+    public double getLatency() {
+        return Math.round(this.nanos / 1000.0) / 1000.0;
+    }
+
+    @JsonIgnore
+    public long getNanos() {
+        return nanos;
+    }
+
+    public Object[] getParam() {
+        return param;
+    }
+
+    public Object getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * 使用本次调用的参数重新调用的方法, 不包含批量和数据源设置
+     *
+     * @return the dubbo method entity
+     */
+    public DubboMethodEntity toDubboMethodEntity() {
+        DubboMethodEntity copy = this.dubboMethodEntity.copy();
+        copy.setParam(this.param == null ? null : this.param.clone());
+        copy.setBatch(null);
+        copy.setBatchFile(null);
+        copy.setFeedFile(null);
+        return copy;
+    }
+}
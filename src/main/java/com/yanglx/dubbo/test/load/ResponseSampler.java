@@ -0,0 +1,165 @@
+package com.yanglx.dubbo.test.load;
+
+import com.yanglx.dubbo.test.dubbo.DubboMethodEntity;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 大量调用时的响应采样: 所有调用的随机样本(reservoir sampling), 最慢的 N 个调用, 以及失败调用的随机样本.
+ * 只保留固定数量的响应, 未被采样的调用不分配内存, 也不会在锁上竞争. 可以被多个线程同时调用
+ */
+public class ResponseSampler {
+
+    private static final int RANDOM_SIZE = 20;
+
+    private static final int SLOWEST_SIZE = 10;
+
+    private static final int FAILED_SIZE = 10;
+
+    private static final Comparator<ResponseSample> BY_LATENCY = Comparator.comparingLong(ResponseSample::getNanos);
+
+    private static final Comparator<ResponseSample> BY_INDEX = Comparator.comparingLong(ResponseSample::getIndex);
+
+    /**
+     * 每一项的方法
+     */
+    private final DubboMethodEntity[] entities;
+
+    /**
+     * 每一项的名称, 单个方法时为 null
+     */
+    private final String[] names;
+
+    private final AtomicLong calls = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private final ResponseSample[] random = new ResponseSample[RANDOM_SIZE];
+
+    private final ResponseSample[] failed = new ResponseSample[FAILED_SIZE];
+
+    /**
+     * 最慢的调用, 堆顶是其中最快的
+     */
+    private final PriorityQueue<ResponseSample> slowest = new PriorityQueue<>(SLOWEST_SIZE, BY_LATENCY);
+
+    /**
+     * 进入最慢列表需要超过的延迟, 列表未满时为 -1
+     */
+    private volatile long slowestThreshold = -1;
+
+    /**
+     * 单个方法的采样
+     *
+     * @param dubboMethodEntity dubbo method entity
+     */
+    public ResponseSampler(DubboMethodEntity dubboMethodEntity) {
+        this(new DubboMethodEntity[]{dubboMethodEntity}, new String[1]);
+    }
+
+    ResponseSampler(DubboMethodEntity[] entities, String[] names) {
+        this.entities = entities;
+        this.names = names;
+    }
+
+    /**
+     * 记录一次调用
+     *
+     * @param entry     组合中的序号, 单个方法时为 0
+     * @param param     param, 使用方法中的参数时为 null
+     * @param result    result
+     * @param throwable throwable, 成功时为 null
+     * @param nanos     latency nanos
+     */
+    public void record(int entry, Object[] param, Object result, Throwable throwable, long nanos) {
+        long index = this.calls.getAndIncrement();
+        ResponseSample sample = null;
+        int slot = reservoirSlot(index, RANDOM_SIZE);
+        if (slot >= 0) {
+            sample = this.newSample(index, entry, param, result, throwable, nanos);
+            synchronized (this.random) {
+                this.random[slot] = sample;
+            }
+        }
+        if (throwable != null) {
+            int failedSlot = reservoirSlot(this.failures.getAndIncrement(), FAILED_SIZE);
+            if (failedSlot >= 0) {
+                sample = sample != null ? sample : this.newSample(index, entry, param, result, throwable, nanos);
+                synchronized (this.failed) {
+                    this.failed[failedSlot] = sample;
+                }
+            }
+        }
+        if (nanos > this.slowestThreshold) {
+            sample = sample != null ? sample : this.newSample(index, entry, param, result, throwable, nanos);
+            synchronized (this.slowest) {
+                if (this.slowest.size() < SLOWEST_SIZE) {
+                    this.slowest.add(sample);
+                } else if (nanos > this.slowest.peek().getNanos()) {
+                    this.slowest.poll();
+                    this.slowest.add(sample);
+                }
+                if (this.slowest.size() == SLOWEST_SIZE) {
+                    this.slowestThreshold = this.slowest.peek().getNanos();
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前的样本
+     *
+     * @return the response samples
+     */
+    public ResponseSamples snapshot() {
+        List<ResponseSample> random = new ArrayList<>();
+        synchronized (this.random) {
+            for (ResponseSample sample : this.random) {
+                if (sample != null) {
+                    random.add(sample);
+                }
+            }
+        }
+        random.sort(BY_INDEX);
+        List<ResponseSample> failed = new ArrayList<>();
+        synchronized (this.failed) {
+            for (ResponseSample sample : this.failed) {
+                if (sample != null) {
+                    failed.add(sample);
+                }
+            }
+        }
+        failed.sort(BY_INDEX);
+        List<ResponseSample> slowest;
+        synchronized (this.slowest) {
+            slowest = new ArrayList<>(this.slowest);
+        }
+        slowest.sort(BY_LATENCY.reversed());
+        return new ResponseSamples(random, slowest, failed);
+    }
+
+    /**
+     * Algorithm R: 第 index 个元素被选中时返回替换的位置, 否则返回 -1
+     */
+    private static int reservoirSlot(long index, int size) {
+        if (index < size) {
+            return (int) index;
+        }
+        long slot = ThreadLocalRandom.current().nextLong(index + 1);
+        return slot < size ? (int) slot : -1;
+    }
+
+    private ResponseSample newSample(long index, int entry, Object[] param, Object result, Throwable throwable, long nanos) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        DubboMethodEntity entity = this.entities[entry];
+        return new ResponseSample(index, this.names[entry], nanos, param != null ? param : entity.getParam(),
+                throwable == null ? result : null, cause == null ? null : String.valueOf(cause), entity);
+    }
+}
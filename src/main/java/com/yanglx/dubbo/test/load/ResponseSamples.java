@@ -0,0 +1,42 @@
+package com.yanglx.dubbo.test.load;
+
+import java.util.List;
+
+/**
+ * {@link ResponseSampler} 的样本
+ */
+public class ResponseSamples {
+
+    /**
+     * 所有调用的随机样本, 按调用顺序
+     */
+    private final List<ResponseSample> random;
+
+    /**
+     * 最慢的调用, 按延迟从高到低
+     */
+    private final List<ResponseSample> slowest;
+
+    /**
+     * 失败调用的随机样本, 按调用顺序
+     */
+    private final List<ResponseSample> failed;
+
+    ResponseSamples(List<ResponseSample> random, List<ResponseSample> slowest, List<ResponseSample> failed) {
+        this.random = random;
+        this.slowest = slowest;
+        this.failed = failed;
+    }
+
+    public List<ResponseSample> getRandom() {
+        return random;
+    }
+
+    public List<ResponseSample> getSlowest() {
+        return slowest;
+    }
+
+    public List<ResponseSample> getFailed() {
+        return failed;
+    }
+}
@@ -0,0 +1,128 @@
+package com.yanglx.dubbo.test.load;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SLO 容量搜索结果, 时间单位均为毫秒
+ */
+public class SloSearchReport {
+
+    /**
+     * Target p99
+     */
+    private double targetP99;
+
+    /**
+     * Max error rate, 0 ~ 1
+     */
+    private double maxErrorRate;
+
+    /**
+     * Probe duration in seconds
+     */
+    private long probeDuration;
+
+    /**
+     * 满足 SLO 的最大速率(requests/s), 最低速率也不满足时为空
+     */
+    private Double maxRate;
+
+    /**
+     * 第一个不满足 SLO 的速率, 即饱和点的上界
+     */
+    private Double saturatedRate;
+
+    /**
+     * Probes, 按执行顺序
+     */
+    private final List<Probe> probes = new ArrayList<>();
+
+    SloSearchReport(double targetP99, double maxErrorRate, long probeDuration) {
+        this.targetP99 = targetP99;
+        this.maxErrorRate = maxErrorRate;
+        this.probeDuration = probeDuration;
+    }
+
+    void addProbe(Probe probe) {
+        this.probes.add(probe);
+        if (probe.isPassed()) {
+            this.maxRate = this.maxRate == null ? probe.getRate() : Math.max(this.maxRate, probe.getRate());
+        } else {
+            this.saturatedRate = this.saturatedRate == null ? probe.getRate() : Math.min(this.saturatedRate, probe.getRate());
+        }
+    }
+
+    public double getTargetP99() {
+        return targetP99;
+    }
+
+    public double getMaxErrorRate() {
+        return maxErrorRate;
+    }
+
+    public long getProbeDuration() {
+        return probeDuration;
+    }
+
+    public Double getMaxRate() {
+        return maxRate;
+    }
+
+    public Double getSaturatedRate() {
+        return saturatedRate;
+    }
+
+    public List<Probe> getProbes() {
+        return probes;
+    }
+
+    /**
+     * 一次固定速率的试探
+     */
+    public static class Probe {
+
+        /**
+         * Requests per second
+         */
+        private final double rate;
+
+        /**
+         * 是否满足 SLO
+         */
+        private final boolean passed;
+
+        /**
+         * 不满足 SLO 的原因
+         */
+        private final String reason;
+
+        /**
+         * Report
+         */
+        private final LoadTestReport report;
+
+        Probe(double rate, boolean passed, String reason, LoadTestReport report) {
+            this.rate = rate;
+            this.passed = passed;
+            this.reason = reason;
+            this.report = report;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public boolean isPassed() {
+            return passed;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public LoadTestReport getReport() {
+            return report;
+        }
+    }
+}
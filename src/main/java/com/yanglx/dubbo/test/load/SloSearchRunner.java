@@ -0,0 +1,142 @@
+package com.yanglx.dubbo.test.load;
+
+import com.yanglx.dubbo.test.dubbo.DubboApiLocator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 搜索满足 SLO(p99 延迟和错误率)的最大速率: 从起始速率开始每次翻倍, 第一次不满足后在上下界之间二分,
+ * 区间缩小到 5% 以内或达到最大试探次数时结束. 每次试探都是一次开放模型的固定速率压测
+ */
+public class SloSearchRunner {
+
+    /**
+     * 最大试探次数
+     */
+    private static final int MAX_PROBES = 20;
+
+    /**
+     * 上下界的相对差距小于该值时结束
+     */
+    private static final double TOLERANCE = 0.05;
+
+    /**
+     * 发送阶段的实际速率低于目标速率的比例时视为不可持续
+     */
+    private static final double MIN_THROUGHPUT_RATIO = 0.9;
+
+    /**
+     * 两次试探之间的间隔(秒), 等待服务端排队的请求处理完
+     */
+    private static final long COOL_DOWN = 2;
+
+    /**
+     * Dubbo api locator
+     */
+    private final DubboApiLocator dubboApiLocator;
+
+    /**
+     * Target p99 in millis
+     */
+    private final double targetP99;
+
+    /**
+     * Max error rate, 0 ~ 1
+     */
+    private final double maxErrorRate;
+
+    /**
+     * Start rate
+     */
+    private final double startRate;
+
+    /**
+     * Probe duration in seconds
+     */
+    private final long probeDuration;
+
+    /**
+     * Abort policy, 每次试探使用
+     */
+    private final AbortPolicy abortPolicy;
+
+    public SloSearchRunner(DubboApiLocator dubboApiLocator, double targetP99, double maxErrorRate,
+                           double startRate, long probeDuration, AbortPolicy abortPolicy) {
+        if (targetP99 <= 0 || maxErrorRate < 0 || startRate <= 0 || probeDuration <= 0) {
+            throw new IllegalArgumentException("target, start rate and probe duration must be positive");
+        }
+        this.dubboApiLocator = dubboApiLocator;
+        this.targetP99 = targetP99;
+        this.maxErrorRate = maxErrorRate;
+        this.startRate = startRate;
+        this.probeDuration = probeDuration;
+        this.abortPolicy = abortPolicy;
+    }
+
+    /**
+     * 执行搜索, 阻塞直到结束
+     *
+     * @param workloadMix workload mix
+     * @param onProbe           每次试探结束的回调, 在执行搜索的线程中执行
+     * @return the slo search report
+     * @throws InterruptedException interrupted
+     */
+    public SloSearchReport run(WorkloadMix workloadMix, Consumer<SloSearchReport.Probe> onProbe)
+            throws InterruptedException {
+        SloSearchReport searchReport = new SloSearchReport(this.targetP99, this.maxErrorRate, this.probeDuration);
+        double passed = 0;
+        double failed = Double.POSITIVE_INFINITY;
+        double rate = this.startRate;
+        for (int i = 0; i < MAX_PROBES && rate >= 1; i++) {
+            if (i > 0) {
+                TimeUnit.SECONDS.sleep(COOL_DOWN);
+            }
+            LoadTestReport report = new ArrivalRateRunner(this.dubboApiLocator, LoadProfile.constant(rate, this.probeDuration),
+                    this.abortPolicy)
+                    .run(workloadMix);
+            String reason = this.check(rate, report);
+            SloSearchReport.Probe probe = new SloSearchReport.Probe(rate, reason == null, reason, report);
+            searchReport.addProbe(probe);
+            onProbe.accept(probe);
+            if (probe.isPassed()) {
+                passed = rate;
+            } else {
+                failed = rate;
+            }
+            if (Double.isInfinite(failed)) {
+                rate = rate * 2;
+            } else if (passed == 0) {
+                rate = Math.floor(rate / 2);
+            } else if (failed - passed <= Math.max(1, passed * TOLERANCE)) {
+                break;
+            } else {
+                rate = Math.floor((passed + failed) / 2);
+            }
+        }
+        return searchReport;
+    }
+
+    /**
+     * 检查是否满足 SLO
+     *
+     * @return 不满足的原因, 满足时为 null
+     */
+    private String check(double rate, LoadTestReport report) {
+        if (report.getAborted() != null) {
+            return "aborted: " + report.getAborted();
+        }
+        if (report.getErrorRate() > this.maxErrorRate) {
+            return "error rate " + report.getErrorRate() + " > " + this.maxErrorRate;
+        }
+        if (report.getP99() > this.targetP99) {
+            return "p99 " + report.getP99() + "ms > " + this.targetP99 + "ms";
+        }
+        //不包含等待在途请求结束的时间, 短时间的试探不会因为收尾被判为不可持续
+        double achieved = report.getSendRate() != null ? report.getSendRate() : report.getThroughput();
+        if (achieved < rate * MIN_THROUGHPUT_RATIO) {
+            return "throughput " + Math.round(achieved) + "/s < " + Math.round(rate * MIN_THROUGHPUT_RATIO) + "/s";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,230 @@
+package com.yanglx.dubbo.test.load;
+
+import com.yanglx.dubbo.test.dubbo.DubboApiLocator;
+import com.yanglx.dubbo.test.dubbo.DubboMethodEntity;
+import com.yanglx.dubbo.test.dubbo.PreparedInvocation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 压测的请求组合: 按权重随机选择每次调用的方法, 单个方法的压测是只有一项的组合
+ */
+public class WorkloadMix {
+
+    private final List<String> names = new ArrayList<>();
+
+    private final List<DubboMethodEntity> entities = new ArrayList<>();
+
+    private final List<Integer> weights = new ArrayList<>();
+
+    /**
+     * 累计权重, 用于按权重选择
+     */
+    private int[] cumulativeWeights = new int[0];
+
+    /**
+     * 只有一个方法的组合
+     *
+     * @param dubboMethodEntity dubbo method entity
+     * @return the workload mix
+     */
+    public static WorkloadMix single(DubboMethodEntity dubboMethodEntity) {
+        return new WorkloadMix().add(dubboMethodEntity.getInterfaceName() + "#" + dubboMethodEntity.getMethodName(),
+                dubboMethodEntity, 1);
+    }
+
+    /**
+     * 添加一项, 权重为 0 的项不会被调用
+     *
+     * @param name              name
+     * @param dubboMethodEntity dubbo method entity
+     * @param weight            weight
+     * @return the workload mix
+     */
+    public WorkloadMix add(String name, DubboMethodEntity dubboMethodEntity, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must not be negative");
+        }
+        this.names.add(name);
+        this.entities.add(dubboMethodEntity.copy());
+        this.weights.add(weight);
+        int[] cumulative = new int[this.weights.size()];
+        int total = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            total += this.weights.get(i);
+            cumulative[i] = total;
+        }
+        this.cumulativeWeights = cumulative;
+        return this;
+    }
+
+    public int size() {
+        return this.entities.size();
+    }
+
+    public String getName(int index) {
+        return this.names.get(index);
+    }
+
+    public int getWeight(int index) {
+        return this.weights.get(index);
+    }
+
+    /**
+     * 总权重
+     */
+    public int getTotalWeight() {
+        return this.cumulativeWeights.length == 0 ? 0 : this.cumulativeWeights[this.cumulativeWeights.length - 1];
+    }
+
+    /**
+     * 为每一项准备调用, 会创建或获取引用, 需要在后台线程中执行
+     *
+     * @param dubboApiLocator dubbo api locator
+     * @return 按添加顺序的调用
+     */
+    PreparedInvocation[] prepare(DubboApiLocator dubboApiLocator) {
+        if (this.getTotalWeight() <= 0) {
+            throw new IllegalArgumentException("at least one entry must have a positive weight");
+        }
+        PreparedInvocation[] invocations = new PreparedInvocation[this.entities.size()];
+        for (int i = 0; i < invocations.length; i++) {
+            invocations[i] = dubboApiLocator.prepare(this.entities.get(i));
+        }
+        return invocations;
+    }
+
+    /**
+     * 为设置了 feedFile 的项打开循环读取的数据源
+     *
+     * @return 按添加顺序, 没有数据源的项为 null
+     * @throws UncheckedIOException 打开文件失败
+     */
+    ParamFeed[] openFeeds() {
+        ParamFeed[] feeds = new ParamFeed[this.entities.size()];
+        try {
+            for (int i = 0; i < feeds.length; i++) {
+                feeds[i] = ParamFeed.open(this.entities.get(i), true);
+            }
+        } catch (IOException e) {
+            closeFeeds(feeds);
+            throw new UncheckedIOException(e);
+        }
+        return feeds;
+    }
+
+    /**
+     * 关闭数据源
+     *
+     * @param feeds feeds
+     */
+    static void closeFeeds(ParamFeed[] feeds) {
+        for (ParamFeed feed : feeds) {
+            if (feed == null) {
+                continue;
+            }
+            try {
+                feed.close();
+            } catch (IOException ignored) {
+                //只读的文件, 关闭失败不影响结果
+            }
+        }
+    }
+
+    /**
+     * 编译每一项的响应断言
+     *
+     * @return 按添加顺序, 没有断言的项为 null
+     * @throws IllegalArgumentException 断言格式错误
+     */
+    ResponseAssertions[] compileAssertions() {
+        ResponseAssertions[] assertions = new ResponseAssertions[this.entities.size()];
+        for (int i = 0; i < assertions.length; i++) {
+            assertions[i] = ResponseAssertions.compile(this.entities.get(i).getAssertions());
+        }
+        return assertions;
+    }
+
+    /**
+     * 所有项的断言结果, 多于一项时标记所属的项
+     *
+     * @param assertions {@link #compileAssertions()} 的结果
+     * @return 没有断言时返回 null
+     */
+    List<AssertionReport> assertionReports(ResponseAssertions[] assertions) {
+        List<AssertionReport> reports = new ArrayList<>();
+        for (int i = 0; i < assertions.length; i++) {
+            if (assertions[i] != null) {
+                reports.addAll(assertions[i].report(this.size() > 1 ? this.names.get(i) : null));
+            }
+        }
+        return reports.isEmpty() ? null : reports;
+    }
+
+    /**
+     * 按权重随机选择一项, 不分配内存
+     *
+     * @return the index
+     */
+    int pick() {
+        int[] cumulative = this.cumulativeWeights;
+        if (cumulative.length == 1) {
+            return 0;
+        }
+        int value = ThreadLocalRandom.current().nextInt(cumulative[cumulative.length - 1]);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (value < cumulative[i]) {
+                return i;
+            }
+        }
+        return cumulative.length - 1;
+    }
+
+    /**
+     * 每一项的报告, 只有一项时返回 null
+     *
+     * @param recorders    每一项的延迟记录
+     * @param errors       每一项的错误数
+     * @param elapsedNanos elapsed nanos
+     * @param concurrency  concurrency
+     * @return the list
+     */
+    List<LoadTestReport> entryReports(LatencyRecorder[] recorders, AtomicLongArray errors, long elapsedNanos, int concurrency) {
+        if (this.size() <= 1) {
+            return null;
+        }
+        List<LoadTestReport> reports = new ArrayList<>();
+        for (int i = 0; i < this.size(); i++) {
+            reports.add(LoadTestReport.of(recorders[i].merge(), errors.get(i), elapsedNanos, concurrency, null)
+                    .entry(this.names.get(i), this.weights.get(i)));
+        }
+        return reports;
+    }
+
+    /**
+     * 创建响应采样, 多于一项时样本标记所属的项
+     */
+    ResponseSampler newSampler() {
+        String[] names = new String[this.size()];
+        if (this.size() > 1) {
+            names = this.names.toArray(names);
+        }
+        return new ResponseSampler(this.entities.toArray(new DubboMethodEntity[0]), names);
+    }
+
+    /**
+     * 为每一项创建延迟记录
+     */
+    LatencyRecorder[] newRecorders() {
+        LatencyRecorder[] recorders = new LatencyRecorder[this.size()];
+        for (int i = 0; i < recorders.length; i++) {
+            recorders[i] = new LatencyRecorder();
+        }
+        return recorders;
+    }
+}
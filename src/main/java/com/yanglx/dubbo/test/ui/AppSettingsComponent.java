@@ -1,7 +1,13 @@
 package com.yanglx.dubbo.test.ui;
 
+import com.intellij.ui.JBIntSpinner;
 import com.intellij.util.ui.ColumnInfo;
+import com.intellij.util.ui.FormBuilder;
 import com.intellij.util.ui.table.TableModelEditor;
+import com.yanglx.dubbo.test.HistoryJournal;
+import com.yanglx.dubbo.test.dubbo.DubboMethodEntity;
+import com.yanglx.dubbo.test.dubbo.ReferenceCache;
+import com.yanglx.dubbo.test.load.AbortPolicy;
 import com.yanglx.dubbo.test.ui.setting.MyDialogItemEditor;
 
 import javax.swing.JComponent;
@@ -17,6 +23,20 @@ public class AppSettingsComponent {
 
     private TableModelEditor<MyConfigurableDubboSettings> tableModelEditor;
 
+    private JBIntSpinner referenceCacheMaxSize;
+
+    private JBIntSpinner referenceIdleMinutes;
+
+    private JBIntSpinner defaultTimeout;
+
+    private JBIntSpinner abortErrorRate;
+
+    private JBIntSpinner abortTimeoutRate;
+
+    private JBIntSpinner historyMaxEntries;
+
+    private JBIntSpinner historyMaxMegabytes;
+
     /**
      * 表格
      */
@@ -80,6 +100,17 @@ public class AppSettingsComponent {
                     item.setGroup(value);
                 }
 
+                @Override
+                public boolean isCellEditable(MyConfigurableDubboSettings myConfigurableDubboSettings) {
+                    return false;
+                }
+            },
+            new EditableColumnInfo<MyConfigurableDubboSettings, String>("Max rps") {
+                @Override
+                public String valueOf(MyConfigurableDubboSettings item) {
+                    return item.getMaxRps() == null ? "" : String.valueOf(item.getMaxRps());
+                }
+
                 @Override
                 public boolean isCellEditable(MyConfigurableDubboSettings myConfigurableDubboSettings) {
                     return false;
@@ -95,6 +126,27 @@ public class AppSettingsComponent {
                 "No dubbo configured");
         browsersTable.setLayout(new BorderLayout());
         browsersTable.add(tableModelEditor.createComponent(), BorderLayout.CENTER);
+
+        //引用缓存
+        referenceCacheMaxSize = new JBIntSpinner(ReferenceCache.DEFAULT_MAX_SIZE, 1, 1024);
+        referenceIdleMinutes = new JBIntSpinner(ReferenceCache.DEFAULT_IDLE_MINUTES, 1, 24 * 60);
+        defaultTimeout = new JBIntSpinner(DubboMethodEntity.DEFAULT_TIMEOUT, 1, 10 * 60 * 1000, 1000);
+        //压测熔断
+        abortErrorRate = new JBIntSpinner(AbortPolicy.DEFAULT_ERROR_RATE, 0, 100);
+        abortTimeoutRate = new JBIntSpinner(AbortPolicy.DEFAULT_TIMEOUT_RATE, 0, 100);
+        //历史
+        historyMaxEntries = new JBIntSpinner(HistoryJournal.DEFAULT_MAX_ENTRIES, 0, 1_000_000, 1000);
+        historyMaxMegabytes = new JBIntSpinner(HistoryJournal.DEFAULT_MAX_MEGABYTES, 0, 100 * 1024, 10);
+        JPanel cachePanel = FormBuilder.createFormBuilder()
+                .addLabeledComponent("Default timeout (ms)", defaultTimeout)
+                .addLabeledComponent("Max cached references", referenceCacheMaxSize)
+                .addLabeledComponent("Destroy idle references after (minutes)", referenceIdleMinutes)
+                .addLabeledComponent("Abort load runs at error rate (%, 0 = never)", abortErrorRate)
+                .addLabeledComponent("Abort load runs at timeout rate (%, 0 = never)", abortTimeoutRate)
+                .addLabeledComponent("Max history entries (0 = unlimited)", historyMaxEntries)
+                .addLabeledComponent("Max history size (MB, 0 = unlimited)", historyMaxMegabytes)
+                .getPanel();
+        browsersTable.add(cachePanel, BorderLayout.SOUTH);
     }
 
     /**
@@ -124,6 +176,62 @@ public class AppSettingsComponent {
         return tableModelEditor.apply();
     }
 
+    public int getReferenceCacheMaxSize() {
+        return referenceCacheMaxSize.getNumber();
+    }
+
+    public void setReferenceCacheMaxSize(int maxSize) {
+        referenceCacheMaxSize.setNumber(maxSize);
+    }
+
+    public int getReferenceIdleMinutes() {
+        return referenceIdleMinutes.getNumber();
+    }
+
+    public void setReferenceIdleMinutes(int idleMinutes) {
+        referenceIdleMinutes.setNumber(idleMinutes);
+    }
+
+    public int getDefaultTimeout() {
+        return defaultTimeout.getNumber();
+    }
+
+    public void setDefaultTimeout(int timeout) {
+        defaultTimeout.setNumber(timeout);
+    }
+
+    public int getAbortErrorRate() {
+        return abortErrorRate.getNumber();
+    }
+
+    public void setAbortErrorRate(int errorRate) {
+        abortErrorRate.setNumber(errorRate);
+    }
+
+    public int getAbortTimeoutRate() {
+        return abortTimeoutRate.getNumber();
+    }
+
+    public void setAbortTimeoutRate(int timeoutRate) {
+        abortTimeoutRate.setNumber(timeoutRate);
+    }
+
+    public int getHistoryMaxEntries() {
+        return historyMaxEntries.getNumber();
+    }
+
+    public void setHistoryMaxEntries(int maxEntries) {
+        historyMaxEntries.setNumber(maxEntries);
+    }
+
+    public int getHistoryMaxMegabytes() {
+        return historyMaxMegabytes.getNumber();
+    }
+
+    public void setHistoryMaxMegabytes(int maxMegabytes) {
+        historyMaxMegabytes.setNumber(maxMegabytes);
+    }
+
     public JComponent getPanel() {
         return browsersTable;
     }
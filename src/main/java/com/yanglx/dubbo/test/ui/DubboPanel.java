@@ -1,24 +1,51 @@
 package com.yanglx.dubbo.test.ui;
 
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.project.Project;
+import com.intellij.ui.DocumentAdapter;
 import com.intellij.ui.JBSplitter;
 import com.intellij.ui.components.JBPanel;
 import com.yanglx.dubbo.test.CacheInfo;
+import com.yanglx.dubbo.test.DubboExecutorService;
 import com.yanglx.dubbo.test.DubboSetingState;
+import com.yanglx.dubbo.test.PluginThreadFactory;
 import com.yanglx.dubbo.test.dubbo.DubboApiLocator;
 import com.yanglx.dubbo.test.dubbo.DubboMethodEntity;
+import com.yanglx.dubbo.test.dubbo.InvocationTiming;
+import com.yanglx.dubbo.test.dubbo.SerializationProbe;
+import com.yanglx.dubbo.test.load.AbortPolicy;
+import com.yanglx.dubbo.test.load.ArrivalRateRunner;
+import com.yanglx.dubbo.test.load.BatchRunner;
+import com.yanglx.dubbo.test.load.LoadRunner;
+import com.yanglx.dubbo.test.load.LoadTestReport;
+import com.yanglx.dubbo.test.load.LoadTestRunner;
+import com.yanglx.dubbo.test.load.ResponseAssertions;
+import com.yanglx.dubbo.test.load.ResponseSampler;
+import com.yanglx.dubbo.test.load.ResponseSamples;
+import com.yanglx.dubbo.test.load.SloSearchReport;
+import com.yanglx.dubbo.test.load.SloSearchRunner;
+import com.yanglx.dubbo.test.load.WorkloadMix;
+import com.yanglx.dubbo.test.utils.IntellijUtils;
 import com.yanglx.dubbo.test.utils.Json;
 import com.yanglx.dubbo.test.utils.PluginUtils;
 import com.yanglx.dubbo.test.utils.StrUtils;
 import io.netty.util.internal.ThrowableUtil;
+import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
 import java.awt.*;
+import java.awt.event.ItemEvent;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>Description: </p>
@@ -29,7 +56,7 @@ import java.util.concurrent.*;
  * @date 2021.02.20 15:57
  * @since 1.0.0
  */
-public class DubboPanel extends JBPanel {
+public class DubboPanel extends JBPanel implements Disposable {
 
     private static final long serialVersionUID = -8541227582365214834L;
     /**
@@ -40,6 +67,18 @@ public class DubboPanel extends JBPanel {
      * Button 1
      */
     private JButton invokeBtn;
+    /**
+     * Load test button
+     */
+    private JButton loadBtn;
+    /**
+     * Stop button
+     */
+    private JButton stopBtn;
+    /**
+     * Samples button
+     */
+    private JButton samplesBtn;
     /**
      * Interface name text field
      */
@@ -69,6 +108,10 @@ public class DubboPanel extends JBPanel {
      * group text field
      */
     private JTextField groupTextField;
+    /**
+     * Timeout text field
+     */
+    private JTextField timeoutTextField;
     private JButton saveBtn;
     private JPanel editorPane;
     /**
@@ -99,6 +142,26 @@ public class DubboPanel extends JBPanel {
     }
 
 
+    public JButton getLoadBtn() {
+        return loadBtn;
+    }
+
+
+    public JButton getStopBtn() {
+        return stopBtn;
+    }
+
+
+    public JButton getSamplesBtn() {
+        return samplesBtn;
+    }
+
+
+    public JTextField getTimeoutTextField() {
+        return timeoutTextField;
+    }
+
+
     public JTextField getInterfaceNameTextField() {
         return interfaceNameTextField;
     }
@@ -172,7 +235,39 @@ public class DubboPanel extends JBPanel {
         return dubboMethodEntity;
     }
 
-    private final ExecutorService executorService = Executors.newFixedThreadPool(2);
+    /**
+     * 执行中的请求, 关闭 tab 时取消
+     */
+    private final Set<Future<?>> pendingFutures = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean disposed;
+
+    /**
+     * 地址或接口输入停止变化后预热引用
+     */
+    private final Timer warmUpTimer = new Timer(800, e -> this.warmUp());
+
+    /**
+     * 批量调用时等待写入响应的结果
+     */
+    private final Queue<String> responseLines = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean responseFlushScheduled = new AtomicBoolean();
+
+    /**
+     * 批量调用时最多写入响应的行数, 之后的结果只采样
+     */
+    private static final int MAX_BATCH_LINES = 1000;
+
+    /**
+     * 压测和批量调用的线程, 长时间运行, 不放在共用线程池中
+     */
+    private static final ThreadFactory JOB_THREAD_FACTORY = new PluginThreadFactory("job");
+
+    /**
+     * 最近一次批量调用或压测的响应样本
+     */
+    private volatile ResponseSamples samples;
 
     /**
      * Dubbo panel
@@ -254,46 +349,64 @@ public class DubboPanel extends JBPanel {
             String id = UUID.randomUUID().toString();
             String name = this.dubboMethodEntity.getMethodName() + "#" + this.dubboMethodEntity.getInterfaceName();
             CacheInfo of = CacheInfo.of(id, name, this.dubboMethodEntity);
-            instance.add(of, DubboSetingState.CacheType.HISTORY);
-            //刷新左边树结构
-            leftTree.refresh();
+            CompletableFuture<String> historyId = instance.add(of, DubboSetingState.CacheType.HISTORY);
+            //写入后刷新左边树结构
+            historyId.thenRun(() -> IntellijUtils.safelyInvokeLater(leftTree::refresh));
             //清空数据
+            this.responseLines.clear();
             PluginUtils.writeDocument(this.project, this.jsonEditorResp.getDocument(), "");
-            //异步处理
-            Future<Object> submit = executorService.submit(() -> {
-                DubboApiLocator dubboApiLocator = new DubboApiLocator();
-                Object invoke = dubboApiLocator.invoke(dubboMethodEntity);
-                return invoke;
-            });
-            //异步获取返回值，设置超时时间
-            executorService.submit(() -> {
-                tip.setText("Requesting...");
-                tip.updateUI();
-                long start = System.currentTimeMillis();
+            if (BatchRunner.isBatch(this.dubboMethodEntity)) {
+                this.runBatch();
+                return;
+            }
+            //异步处理, 不阻塞线程等待结果
+            tip.setText("Requesting...");
+            tip.updateUI();
+            long start = System.currentTimeMillis();
+            InvocationTiming timing = new InvocationTiming();
+            Object[] param = this.dubboMethodEntity.getParam();
+            CompletableFuture<Object> future = new DubboApiLocator()
+                    .invokeAsync(dubboMethodEntity, DubboExecutorService.getInstance(), timing)
+                    .orTimeout(dubboMethodEntity.getTimeout(), TimeUnit.MILLISECONDS);
+            this.pendingFutures.add(future);
+            future.whenComplete((result, throwable) -> {
+                this.pendingFutures.remove(future);
+                if (this.disposed) {
+                    return;
+                }
+                long millis = System.currentTimeMillis() - start;
+                //格式化大的响应较慢, 不占用 dubbo 的回调线程
+                Runnable show = () -> this.showResponse(result, throwable, millis, timing, param, historyId);
                 try {
-                    Object result = submit.get(10, TimeUnit.SECONDS);
-
-                    PluginUtils.writeDocument(this.project,
-                            this.jsonEditorResp.getDocument(),
-                            Json.prettyPrint(result));
-
-                    long end = System.currentTimeMillis();
-                    this.tip.setText("time:" + (end - start));
-                    this.tip.updateUI();
-                } catch (TimeoutException timeoutException) {
-//                    DubboPanel.this.tip.setText(DubboTestBundle.message("dubbo-test.invoke.timeout.tootip"));
-                    tip.setText("Timeout...");
-                    tip.updateUI();
-                    submit.cancel(true);
-                } catch (ExecutionException | InterruptedException exception) {
-                    PluginUtils.writeDocument(this.project,
-                            this.jsonEditorResp.getDocument(),
-                            ThrowableUtil.stackTraceToString(exception));
-                    tip.setText("Failed! Please try again.");
+                    DubboExecutorService.getInstance().execute(show);
+                } catch (RejectedExecutionException ex) {
+                    JOB_THREAD_FACTORY.newThread(show).start();
                 }
             });
+        });
+
+        //压测
+        this.loadBtn.addActionListener(e -> {
+            this.refreshDubboMethodEntity();
+            if (isBlankEntity()) {
+                return;
+            }
+            this.runLoadTest(WorkloadMix.single(this.dubboMethodEntity));
+        });
 
+        //查看响应样本
+        this.samplesBtn.addActionListener(e -> {
+            if (this.samples != null) {
+                new SamplesDialog(this.project, this.samples, this::openInNewTab).show();
+            }
+        });
 
+        //停止执行中的请求和压测
+        this.stopBtn.addActionListener(e -> {
+            this.cancelPending();
+            this.loadBtn.setEnabled(true);
+            tip.setText("Stopped.");
+            tip.updateUI();
         });
 
         //下拉
@@ -301,7 +414,22 @@ public class DubboPanel extends JBPanel {
             CacheInfo item = (CacheInfo) e.getItem();
             versionTextField.setText(item.getVersion());
             groupTextField.setText(item.getGroup());
+            if (e.getStateChange() == ItemEvent.SELECTED) {
+                this.warmUpTimer.restart();
+            }
         });
+
+        //预热
+        this.warmUpTimer.setRepeats(false);
+        DocumentAdapter warmUpListener = new DocumentAdapter() {
+            @Override
+            protected void textChanged(@NotNull DocumentEvent e) {
+                warmUpTimer.restart();
+            }
+        };
+        this.interfaceNameTextField.getDocument().addDocumentListener(warmUpListener);
+        this.versionTextField.getDocument().addDocumentListener(warmUpListener);
+        this.groupTextField.getDocument().addDocumentListener(warmUpListener);
     }
 
     /**
@@ -322,14 +450,25 @@ public class DubboPanel extends JBPanel {
         this.dubboMethodEntity.setAddress(selectedItem.getAddress());
         this.dubboMethodEntity.setVersion(versionTextField.getText());
         this.dubboMethodEntity.setGroup(groupTextField.getText());
+        this.dubboMethodEntity.setTimeout(this.parseTimeout());
         if (jsonEditorReq.getDocumentText() != null
                 && jsonEditorReq.getDocumentText().length() > 0) {
             DubboMethodEntity dubboMethodEntity = Json.fromJson(jsonEditorReq.getDocumentText(), DubboMethodEntity.class);
             this.dubboMethodEntity.setMethodType(dubboMethodEntity.getMethodType());
             this.dubboMethodEntity.setParam(dubboMethodEntity.getParam());
+            this.dubboMethodEntity.setBatch(dubboMethodEntity.getBatch());
+            this.dubboMethodEntity.setBatchFile(dubboMethodEntity.getBatchFile());
+            this.dubboMethodEntity.setDepth(dubboMethodEntity.getDepth());
+            this.dubboMethodEntity.setFeedFile(dubboMethodEntity.getFeedFile());
+            this.dubboMethodEntity.setAssertions(dubboMethodEntity.getAssertions());
         } else {
             this.dubboMethodEntity.setParam(new Object[]{});
             this.dubboMethodEntity.setMethodType(new String[]{});
+            this.dubboMethodEntity.setBatch(null);
+            this.dubboMethodEntity.setBatchFile(null);
+            this.dubboMethodEntity.setDepth(null);
+            this.dubboMethodEntity.setFeedFile(null);
+            this.dubboMethodEntity.setAssertions(null);
         }
     }
 
@@ -362,15 +501,33 @@ public class DubboPanel extends JBPanel {
         textField4.setText(dubboMethodEntity.getGroup());
         JTextField textField5 = dubboPanel.getVersionTextField();
         textField5.setText(dubboMethodEntity.getVersion());
+        dubboPanel.getTimeoutTextField().setText(dubboMethodEntity.getTimeout() == null
+                ? "" : String.valueOf(dubboMethodEntity.getTimeout()));
 
         Map<String, Object> map = new HashMap<>();
         map.put("param", dubboMethodEntity.getParam());
         map.put("methodType", dubboMethodEntity.getMethodType());
+        if (dubboMethodEntity.getBatch() != null) {
+            map.put("batch", dubboMethodEntity.getBatch());
+        }
+        if (StrUtils.isNotBlank(dubboMethodEntity.getBatchFile())) {
+            map.put("batchFile", dubboMethodEntity.getBatchFile());
+        }
+        if (dubboMethodEntity.getDepth() != null) {
+            map.put("depth", dubboMethodEntity.getDepth());
+        }
+        if (StrUtils.isNotBlank(dubboMethodEntity.getFeedFile())) {
+            map.put("feedFile", dubboMethodEntity.getFeedFile());
+        }
+        if (dubboMethodEntity.getAssertions() != null) {
+            map.put("assertions", dubboMethodEntity.getAssertions());
+        }
 
         PluginUtils.writeDocument(dubboPanel.getProject(),
                 jsonEditorReq.getDocument(),
                 Json.prettyPrint(map));
         dubboPanel.updateUI();
+        dubboPanel.warmUp();
     }
 
     public void reset() {
@@ -382,6 +539,344 @@ public class DubboPanel extends JBPanel {
         }
     }
 
+    /**
+     * 按当前的地址, 接口, 分组和版本在后台预热引用
+     */
+    public void warmUp() {
+        this.warmUpTimer.stop();
+        CacheInfo selectedItem = (CacheInfo) this.addressBox.getSelectedItem();
+        if (this.disposed || selectedItem == null || StrUtils.isBlank(this.interfaceNameTextField.getText())) {
+            return;
+        }
+        DubboMethodEntity entity = new DubboMethodEntity();
+        entity.setAddress(selectedItem.getAddress());
+        entity.setInterfaceName(this.interfaceNameTextField.getText().trim());
+        entity.setVersion(this.versionTextField.getText());
+        entity.setGroup(this.groupTextField.getText());
+        new DubboApiLocator().warmUp(entity, DubboExecutorService.getInstance());
+    }
+
+    /**
+     * 压测, 选择压测参数后在后台执行, 结果写入响应
+     *
+     * @param workloadMix workload mix
+     */
+    public void runLoadTest(WorkloadMix workloadMix) {
+        LoadTestDialog dialog = new LoadTestDialog(this.project);
+        dialog.show();
+        if (!dialog.isOK()) {
+            return;
+        }
+        AbortPolicy abortPolicy = DubboSetingState.getInstance().getAbortPolicy();
+        SloSearchRunner searchRunner = dialog.isSloSearch()
+                ? new SloSearchRunner(new DubboApiLocator(), dialog.getTargetP99(), dialog.getMaxErrorRate(),
+                dialog.getStartRate(), dialog.getProbeDuration(), abortPolicy)
+                : null;
+        LoadRunner runner = searchRunner != null ? null
+                : dialog.isOpenModel() ? new ArrivalRateRunner(new DubboApiLocator(), dialog.getProfile(), abortPolicy)
+                : new LoadTestRunner(new DubboApiLocator(), dialog.getRequests(), dialog.getConcurrency(), abortPolicy);
+        PluginUtils.writeDocument(this.project, this.jsonEditorResp.getDocument(), "");
+        this.loadBtn.setEnabled(false);
+        tip.setText("Load testing...");
+        this.runInBackground(() -> {
+            String text;
+            String tipText;
+            ResponseSamples reportSamples = null;
+            try {
+                if (searchRunner != null) {
+                    SloSearchReport report = searchRunner.run(workloadMix, probe -> IntellijUtils.safelyInvokeLater(() -> {
+                        this.tip.setText("probe " + Math.round(probe.getRate()) + "/s p99:" + probe.getReport().getP99()
+                                + (probe.isPassed() ? " passed" : " failed") + ", searching...");
+                        this.tip.updateUI();
+                    }));
+                    text = Json.prettyPrint(report);
+                    tipText = report.getMaxRate() == null
+                            ? "SLO not met at " + Math.round(report.getProbes().get(report.getProbes().size() - 1).getRate()) + "/s"
+                            : "max rate under SLO:" + Math.round(report.getMaxRate()) + "/s";
+                    reportSamples = report.getProbes().isEmpty() ? null
+                            : report.getProbes().get(report.getProbes().size() - 1).getReport().getSamples();
+                } else {
+                    LoadTestReport report = runner.run(workloadMix);
+                    text = Json.prettyPrint(report);
+                    tipText = "throughput:" + Math.round(report.getThroughput()) + "/s";
+                    if (report.getAborted() != null) {
+                        tipText += " aborted: " + report.getAborted();
+                    }
+                    reportSamples = report.getSamples();
+                }
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception exception) {
+                text = ThrowableUtil.stackTraceToString(exception);
+                tipText = "Failed! Please try again.";
+            }
+            String finalText = text;
+            String finalTipText = tipText;
+            ResponseSamples finalSamples = reportSamples;
+            IntellijUtils.safelyInvokeLater(() -> {
+                if (this.disposed) {
+                    return;
+                }
+                PluginUtils.writeDocument(this.project, this.jsonEditorResp.getDocument(), finalText);
+                this.showSamples(finalSamples);
+                this.loadBtn.setEnabled(true);
+                this.tip.setText(finalTipText);
+                this.tip.setToolTipText(DubboExecutorService.getInstance().toString());
+                this.tip.updateUI();
+            });
+        });
+
+    }
+
+    /**
+     * 批量调用, 每个请求结束时追加一行结果到响应中, 超过 {@link #MAX_BATCH_LINES} 行后只采样.
+     * 设置了断言时只追加失败的请求, 结束时追加断言的统计
+     */
+    private void runBatch() {
+        DubboMethodEntity entity = this.dubboMethodEntity.copy();
+        ResponseAssertions assertions;
+        try {
+            assertions = ResponseAssertions.compile(entity.getAssertions());
+        } catch (IllegalArgumentException e) {
+            tip.setText(e.getMessage());
+            return;
+        }
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger assertionFailed = new AtomicInteger();
+        AtomicInteger lines = new AtomicInteger();
+        ResponseSampler sampler = new ResponseSampler(entity);
+        BatchRunner runner = new BatchRunner(new DubboApiLocator(), (index, param, result, throwable, nanos) -> {
+            sampler.record(0, param, result, throwable, nanos);
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("index", index);
+            line.put("time", TimeUnit.NANOSECONDS.toMillis(nanos));
+            if (throwable == null && assertions != null) {
+                String failure = assertions.check(result);
+                if (failure == null) {
+                    return;
+                }
+                assertionFailed.incrementAndGet();
+                line.put("param", param);
+                line.put("assertion", failure);
+            } else if (throwable == null) {
+                line.put("result", result);
+            } else {
+                failed.incrementAndGet();
+                Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                line.put("param", param);
+                line.put("error", String.valueOf(cause));
+            }
+            int written = lines.getAndIncrement();
+            if (written < MAX_BATCH_LINES) {
+                this.appendResponse(Json.stringify(line) + "\n");
+            } else if (written == MAX_BATCH_LINES) {
+                this.appendResponse("... more results are only sampled, see Samples\n");
+            }
+        }, DubboSetingState.getInstance().getAbortPolicy());
+        tip.setText("Batch running...");
+        tip.updateUI();
+        long start = System.currentTimeMillis();
+        this.runInBackground(() -> {
+            String tipText;
+            try {
+                int total = runner.run(entity);
+                tipText = "batch:" + total + " failed:" + failed.get() + " time:" + (System.currentTimeMillis() - start);
+                if (assertions != null) {
+                    this.appendResponse(Json.prettyPrint(assertions.report(null)) + "\n");
+                    tipText += " assertion failed:" + assertionFailed.get();
+                }
+                if (runner.getAbortReason() != null) {
+                    tipText += " aborted: " + runner.getAbortReason();
+                }
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception exception) {
+                this.appendResponse(ThrowableUtil.stackTraceToString(exception));
+                tipText = "Failed! Please try again.";
+            }
+            String finalTipText = tipText;
+            IntellijUtils.safelyInvokeLater(() -> {
+                if (this.disposed) {
+                    return;
+                }
+                this.showSamples(sampler.snapshot());
+                this.tip.setText(finalTipText);
+                this.tip.setToolTipText(DubboExecutorService.getInstance().toString());
+                this.tip.updateUI();
+            });
+        });
+
+    }
+
+    /**
+     * 结果显示后在后台估算序列化耗时, 提示没有变化时刷新提示
+     */
+    /**
+     * 在线程池中格式化单次调用的结果, 再在 EDT 中显示
+     */
+    private void showResponse(Object result, Throwable throwable, long millis, InvocationTiming timing, Object[] param,
+                              CompletableFuture<String> historyId) {
+        Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+        String text;
+        String tipText;
+        if (cause == null) {
+            long prettyPrintStart = System.nanoTime();
+            text = Json.prettyPrint(result);
+            timing.setPrettyPrint(System.nanoTime() - prettyPrintStart);
+            tipText = "time:" + millis + " (" + timing + ")";
+        } else if (cause instanceof TimeoutException) {
+            text = "";
+            tipText = "Timeout...";
+        } else if (cause instanceof CancellationException) {
+            text = "";
+            tipText = "Stopped.";
+        } else if (cause instanceof RejectedExecutionException) {
+            text = "";
+            tipText = "Busy, please try again later.";
+        } else {
+            text = ThrowableUtil.stackTraceToString(cause);
+            tipText = "Failed! Please try again.";
+        }
+        IntellijUtils.safelyInvokeLater(() -> {
+            if (this.disposed) {
+                return;
+            }
+            PluginUtils.writeDocument(this.project, this.jsonEditorResp.getDocument(), text);
+            this.tip.setText(tipText);
+            this.tip.setToolTipText(DubboExecutorService.getInstance().toString());
+            this.tip.updateUI();
+            if (cause == null) {
+                //超时和失败的耗时不是服务的耗时, 只统计成功的调用
+                historyId.thenAccept(saved -> DubboSetingState.getInstance().recordLatency(saved, millis));
+                this.probeSerialization(timing, param, result, millis, tipText);
+            }
+        });
+    }
+
+    private void probeSerialization(InvocationTiming timing, Object[] param, Object result, long millis, String tipText) {
+        try {
+            DubboExecutorService.getInstance().execute(() -> {
+                SerializationProbe.probe(timing, param, result);
+                String probedTipText = "time:" + millis + " (" + timing + ")";
+                IntellijUtils.safelyInvokeLater(() -> {
+                    if (!this.disposed && tipText.equals(this.tip.getText())) {
+                        this.tip.setText(probedTipText);
+                        this.tip.updateUI();
+                    }
+                });
+            });
+        } catch (RejectedExecutionException ignored) {
+        }
+    }
+
+    /**
+     * 保存响应样本, 有样本时可以查看
+     *
+     * @param samples samples
+     */
+    private void showSamples(ResponseSamples samples) {
+        this.samples = samples;
+        this.samplesBtn.setEnabled(samples != null);
+    }
+
+    /**
+     * 在新 tab 中加载样本的方法和参数, 找不到 tab 时加载到当前 tab
+     *
+     * @param entity dubbo method entity
+     */
+    private void openInNewTab(DubboMethodEntity entity) {
+        TabBar tabBar = (TabBar) SwingUtilities.getAncestorOfClass(TabBar.class, this.mainPanel);
+        if (tabBar == null) {
+            refreshUI(this, entity);
+            return;
+        }
+        tabBar.addTab();
+        Tab component = (Tab) TabBar.getSelectionTabInfo().getComponent();
+        refreshUI(component.getDubboPanel(), entity);
+    }
+
+    /**
+     * 追加响应, 合并同一时间到达的多个结果, 一次写入文档
+     *
+     * @param text text
+     */
+    private void appendResponse(String text) {
+        this.responseLines.add(text);
+        if (this.responseFlushScheduled.compareAndSet(false, true)) {
+            IntellijUtils.safelyInvokeLater(this::flushResponse);
+        }
+    }
+
+    private void flushResponse() {
+        this.responseFlushScheduled.set(false);
+        StringBuilder text = new StringBuilder();
+        String line;
+        while ((line = this.responseLines.poll()) != null) {
+            text.append(line);
+        }
+        if (this.disposed || text.length() == 0) {
+            return;
+        }
+        PluginUtils.appendDocument(this.project, this.jsonEditorResp.getDocument(), text.toString());
+    }
+
+    /**
+     * 压测和批量调用在单独的线程中执行, 不占用共用线程池, 关闭 tab 时会被中断
+     *
+     * @param task task
+     */
+    private void runInBackground(Runnable task) {
+        FutureTask<Void> futureTask = new FutureTask<>(task, null) {
+            @Override
+            protected void done() {
+                pendingFutures.remove(this);
+            }
+        };
+        this.pendingFutures.add(futureTask);
+        JOB_THREAD_FACTORY.newThread(futureTask).start();
+    }
+
+    /**
+     * 超时时间, 未填写或填写错误时使用设置中的默认超时时间
+     *
+     * @return the timeout
+     */
+    private int parseTimeout() {
+        String text = this.timeoutTextField.getText();
+        if (StrUtils.isNotBlank(text)) {
+            try {
+                int timeout = Integer.parseInt(text.trim());
+                if (timeout > 0) {
+                    return timeout;
+                }
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return DubboSetingState.getInstance().defaultTimeout;
+    }
+
+    /**
+     * 取消所有执行中的请求, 已发出的请求不再等待响应, 压测线程被中断
+     */
+    private void cancelPending() {
+        for (Future<?> future : this.pendingFutures) {
+            future.cancel(true);
+        }
+        this.pendingFutures.clear();
+    }
+
+    /**
+     * 取消所有执行中的请求
+     */
+    @Override
+    public void dispose() {
+        this.disposed = true;
+        this.warmUpTimer.stop();
+        this.cancelPending();
+    }
+
     private boolean isBlankEntity() {
         return StrUtils.isBlank(dubboMethodEntity.getMethodName())
                 || StrUtils.isBlank(this.dubboMethodEntity.getInterfaceName());
@@ -0,0 +1,244 @@
+package com.yanglx.dubbo.test.ui;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.ComboBox;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.ValidationInfo;
+import com.intellij.ui.components.JBTextField;
+import com.intellij.util.ui.FormBuilder;
+import com.yanglx.dubbo.test.load.LoadProfile;
+import com.yanglx.dubbo.test.load.LoadTestRunner;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.JComponent;
+
+/**
+ * 压测参数
+ */
+public class LoadTestDialog extends DialogWrapper {
+
+    private static final String CLOSED_MODEL = "Closed (fixed concurrency)";
+
+    private static final String OPEN_MODEL = "Open (arrival rate)";
+
+    private static final String SLO_SEARCH = "Find max rate under SLO";
+
+    private static final String CONSTANT = "Constant";
+
+    private static final String RAMP = "Ramp";
+
+    private static final String STEP = "Step";
+
+    private static final String SPIKE = "Spike";
+
+    private static final String SOAK = "Soak";
+
+    private ComboBox<String> modelBox;
+
+    private JBTextField requestsField;
+
+    private JBTextField concurrencyField;
+
+    private ComboBox<String> profileBox;
+
+    private JBTextField rateField;
+
+    private JBTextField peakRateField;
+
+    private JBTextField durationField;
+
+    private JBTextField stepRateField;
+
+    private JBTextField stepDurationField;
+
+    private JBTextField spikeDurationField;
+
+    private JBTextField targetP99Field;
+
+    private JBTextField maxErrorRateField;
+
+    private JBTextField probeDurationField;
+
+    public LoadTestDialog(@NotNull Project project) {
+        super(project);
+        this.init();
+        this.setTitle("Load Test");
+    }
+
+    @Override
+    protected JComponent createCenterPanel() {
+        this.modelBox = new ComboBox<>(new String[]{CLOSED_MODEL, OPEN_MODEL, SLO_SEARCH});
+        this.requestsField = new JBTextField("1000");
+        this.concurrencyField = new JBTextField("10");
+        this.profileBox = new ComboBox<>(new String[]{CONSTANT, RAMP, STEP, SPIKE, SOAK});
+        this.rateField = new JBTextField("100");
+        this.peakRateField = new JBTextField("500");
+        this.durationField = new JBTextField("30");
+        this.stepRateField = new JBTextField("100");
+        this.stepDurationField = new JBTextField("30");
+        this.spikeDurationField = new JBTextField("5");
+        this.targetP99Field = new JBTextField("100");
+        this.maxErrorRateField = new JBTextField("1");
+        this.probeDurationField = new JBTextField("10");
+        this.rateField.setToolTipText("Constant, start, base or soak rate, or the first rate to probe");
+        this.peakRateField.setToolTipText("Ramp end rate, last step rate or spike rate");
+        this.modelBox.addItemListener(e -> this.updateFields());
+        this.profileBox.addItemListener(e -> this.updateFields());
+        this.updateFields();
+        return FormBuilder.createFormBuilder()
+                .addLabeledComponent("Model", modelBox)
+                .addLabeledComponent("Requests", requestsField)
+                .addLabeledComponent("Concurrency", concurrencyField)
+                .addSeparator()
+                .addLabeledComponent("Profile", profileBox)
+                .addLabeledComponent("Rate (requests/s)", rateField)
+                .addLabeledComponent("Peak rate (requests/s)", peakRateField)
+                .addLabeledComponent("Duration (s)", durationField)
+                .addLabeledComponent("Step (requests/s)", stepRateField)
+                .addLabeledComponent("Step every (s)", stepDurationField)
+                .addLabeledComponent("Spike length (s)", spikeDurationField)
+                .addSeparator()
+                .addLabeledComponent("Target p99 (ms)", targetP99Field)
+                .addLabeledComponent("Max error rate (%)", maxErrorRateField)
+                .addLabeledComponent("Probe duration (s)", probeDurationField)
+                .getPanel();
+    }
+
+    @Nullable
+    @Override
+    protected ValidationInfo doValidate() {
+        if (this.isSloSearch()) {
+            for (JBTextField field : new JBTextField[]{rateField, targetP99Field, probeDurationField}) {
+                if (parsePositive(field) <= 0) {
+                    return new ValidationInfo("Must be a positive number", field);
+                }
+            }
+            if (parsePositive(this.maxErrorRateField) < 0 || parsePositive(this.maxErrorRateField) > 100) {
+                return new ValidationInfo("Must be a number between 0 and 100", this.maxErrorRateField);
+            }
+            return null;
+        }
+        if (this.isOpenModel()) {
+            for (JBTextField field : new JBTextField[]{rateField, peakRateField, durationField,
+                    stepRateField, stepDurationField, spikeDurationField}) {
+                if (field.isEnabled() && parsePositive(field) < 0) {
+                    return new ValidationInfo("Must be a number", field);
+                }
+            }
+            try {
+                if (this.getProfile().getRequests() <= 0) {
+                    return new ValidationInfo("The profile sends no requests", this.rateField);
+                }
+            } catch (IllegalArgumentException e) {
+                return new ValidationInfo(e.getMessage(), this.profileBox);
+            }
+            return null;
+        }
+        if (parsePositive(this.requestsField) <= 0) {
+            return new ValidationInfo("Requests must be a positive number", this.requestsField);
+        }
+        if (parsePositive(this.concurrencyField) <= 0) {
+            return new ValidationInfo("Concurrency must be a positive number", this.concurrencyField);
+        }
+        if (parsePositive(this.concurrencyField) > LoadTestRunner.MAX_CONCURRENCY) {
+            return new ValidationInfo("Concurrency must not exceed " + LoadTestRunner.MAX_CONCURRENCY, this.concurrencyField);
+        }
+        return null;
+    }
+
+    /**
+     * 是否使用开放模型(固定速率)
+     */
+    public boolean isOpenModel() {
+        return OPEN_MODEL.equals(this.modelBox.getSelectedItem());
+    }
+
+    /**
+     * 是否搜索满足 SLO 的最大速率
+     */
+    public boolean isSloSearch() {
+        return SLO_SEARCH.equals(this.modelBox.getSelectedItem());
+    }
+
+    /**
+     * SLO 搜索的起始速率
+     */
+    public int getStartRate() {
+        return parsePositive(this.rateField);
+    }
+
+    public int getTargetP99() {
+        return parsePositive(this.targetP99Field);
+    }
+
+    /**
+     * 错误率上限, 0 ~ 1
+     */
+    public double getMaxErrorRate() {
+        return parsePositive(this.maxErrorRateField) / 100.0;
+    }
+
+    public int getProbeDuration() {
+        return parsePositive(this.probeDurationField);
+    }
+
+    public int getRequests() {
+        return parsePositive(this.requestsField);
+    }
+
+    public int getConcurrency() {
+        return parsePositive(this.concurrencyField);
+    }
+
+    /**
+     * 开放模型的负载形状
+     *
+     * @return the load profile
+     */
+    public LoadProfile getProfile() {
+        int rate = parsePositive(this.rateField);
+        int peakRate = parsePositive(this.peakRateField);
+        int duration = parsePositive(this.durationField);
+        Object profile = this.profileBox.getSelectedItem();
+        if (RAMP.equals(profile)) {
+            return LoadProfile.ramp(rate, peakRate, duration);
+        }
+        if (STEP.equals(profile)) {
+            return LoadProfile.step(rate, parsePositive(this.stepRateField), parsePositive(this.stepDurationField), peakRate);
+        }
+        if (SPIKE.equals(profile)) {
+            return LoadProfile.spike(rate, peakRate, duration, parsePositive(this.spikeDurationField));
+        }
+        if (SOAK.equals(profile)) {
+            return LoadProfile.soak(rate, duration);
+        }
+        return LoadProfile.constant(rate, duration);
+    }
+
+    private void updateFields() {
+        boolean open = this.isOpenModel();
+        boolean sloSearch = this.isSloSearch();
+        Object profile = this.profileBox.getSelectedItem();
+        this.requestsField.setEnabled(!open && !sloSearch);
+        this.concurrencyField.setEnabled(!open && !sloSearch);
+        this.profileBox.setEnabled(open);
+        this.rateField.setEnabled(open || sloSearch);
+        this.peakRateField.setEnabled(open && (RAMP.equals(profile) || STEP.equals(profile) || SPIKE.equals(profile)));
+        this.durationField.setEnabled(open && !STEP.equals(profile));
+        this.stepRateField.setEnabled(open && STEP.equals(profile));
+        this.stepDurationField.setEnabled(open && STEP.equals(profile));
+        this.spikeDurationField.setEnabled(open && SPIKE.equals(profile));
+        this.targetP99Field.setEnabled(sloSearch);
+        this.maxErrorRateField.setEnabled(sloSearch);
+        this.probeDurationField.setEnabled(sloSearch);
+    }
+
+    private static int parsePositive(JBTextField field) {
+        try {
+            return Integer.parseInt(field.getText().trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
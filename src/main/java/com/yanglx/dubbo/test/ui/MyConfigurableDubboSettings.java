@@ -22,6 +22,11 @@ public class MyConfigurableDubboSettings {
 
     private String group;
 
+    /**
+     * 每秒请求上限, 为空或 0 时不限制
+     */
+    private Integer maxRps;
+
     public UUID getId() {
         return id;
     }
@@ -82,6 +87,14 @@ public class MyConfigurableDubboSettings {
         this.group = group;
     }
 
+    public Integer getMaxRps() {
+        return maxRps;
+    }
+
+    public void setMaxRps(Integer maxRps) {
+        this.maxRps = maxRps;
+    }
+
     public MyConfigurableDubboSettings() {
         this(UUID.randomUUID());
     }
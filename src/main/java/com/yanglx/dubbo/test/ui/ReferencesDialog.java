@@ -0,0 +1,103 @@
+package com.yanglx.dubbo.test.ui;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import com.yanglx.dubbo.test.DubboExecutorService;
+import com.yanglx.dubbo.test.dubbo.InvokeStats;
+import com.yanglx.dubbo.test.dubbo.ReferenceCache;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.Action;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.table.DefaultTableModel;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 查看存活的 GenericService 引用
+ */
+public class ReferencesDialog extends DialogWrapper {
+
+    private static final String[] COLUMNS = {"Interface", "Key", "Created", "Last used"};
+
+    private final DefaultTableModel tableModel = new DefaultTableModel(COLUMNS, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+
+    private final JBTable table = new JBTable(tableModel);
+
+    private final JBLabel statsLabel = new JBLabel();
+
+    private List<ReferenceCache.Entry> entries;
+
+    public ReferencesDialog(@NotNull Project project) {
+        super(project);
+        this.init();
+        this.setTitle("References");
+        this.refresh();
+    }
+
+    @Override
+    protected JComponent createCenterPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        JBScrollPane scrollPane = new JBScrollPane(this.table);
+        scrollPane.setPreferredSize(new Dimension(800, 300));
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(this.statsLabel, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    @NotNull
+    @Override
+    protected Action[] createActions() {
+        return new Action[]{new DestroyAction(), getOKAction()};
+    }
+
+    private void refresh() {
+        SimpleDateFormat format = new SimpleDateFormat("MM-dd HH:mm:ss");
+        ReferenceCache cache = ReferenceCache.getInstance();
+        this.entries = cache.snapshot();
+        this.tableModel.setRowCount(0);
+        for (ReferenceCache.Entry entry : this.entries) {
+            this.tableModel.addRow(new Object[]{
+                    entry.getInterfaceName(),
+                    entry.getKey(),
+                    format.format(new Date(entry.getCreateTime())),
+                    format.format(new Date(entry.getLastAccessTime()))
+            });
+        }
+        this.statsLabel.setText("<html>References " + cache + " max:" + cache.getMaxSize()
+                + "<br>Invocations " + InvokeStats.getInstance()
+                + "<br>Executor " + DubboExecutorService.getInstance() + "</html>");
+    }
+
+    /**
+     * 销毁选中的引用
+     */
+    private class DestroyAction extends DialogWrapperAction {
+
+        DestroyAction() {
+            super("Destroy Selected");
+        }
+
+        @Override
+        protected void doAction(ActionEvent e) {
+            ReferenceCache cache = ReferenceCache.getInstance();
+            for (int row : table.getSelectedRows()) {
+                cache.destroy(entries.get(row));
+            }
+            refresh();
+        }
+    }
+}
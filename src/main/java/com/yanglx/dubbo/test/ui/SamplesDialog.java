@@ -0,0 +1,124 @@
+package com.yanglx.dubbo.test.ui;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import com.yanglx.dubbo.test.dubbo.DubboMethodEntity;
+import com.yanglx.dubbo.test.load.ResponseSample;
+import com.yanglx.dubbo.test.load.ResponseSamples;
+import com.yanglx.dubbo.test.utils.Json;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.Action;
+import javax.swing.JComponent;
+import javax.swing.table.DefaultTableModel;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 查看批量调用或压测的响应样本, 双击在新 tab 中重新加载
+ */
+public class SamplesDialog extends DialogWrapper {
+
+    private static final String[] COLUMNS = {"Kind", "#", "Entry", "Latency(ms)", "Param", "Result"};
+
+    /**
+     * 表格中显示的最大长度
+     */
+    private static final int MAX_CELL_LENGTH = 200;
+
+    private final DefaultTableModel tableModel = new DefaultTableModel(COLUMNS, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+
+    private final JBTable table = new JBTable(tableModel);
+
+    private final List<ResponseSample> rows = new ArrayList<>();
+
+    /**
+     * 重新加载样本
+     */
+    private final Consumer<DubboMethodEntity> opener;
+
+    public SamplesDialog(@NotNull Project project, ResponseSamples samples, Consumer<DubboMethodEntity> opener) {
+        super(project);
+        this.opener = opener;
+        this.addRows("Failed", samples.getFailed());
+        this.addRows("Slowest", samples.getSlowest());
+        this.addRows("Random", samples.getRandom());
+        this.table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    openSelected();
+                }
+            }
+        });
+        this.init();
+        this.setTitle("Samples");
+    }
+
+    @Override
+    protected JComponent createCenterPanel() {
+        JBScrollPane scrollPane = new JBScrollPane(this.table);
+        scrollPane.setPreferredSize(new Dimension(900, 400));
+        return scrollPane;
+    }
+
+    @NotNull
+    @Override
+    protected Action[] createActions() {
+        return new Action[]{new OpenAction(), getOKAction()};
+    }
+
+    private void addRows(String kind, List<ResponseSample> samples) {
+        for (ResponseSample sample : samples) {
+            this.rows.add(sample);
+            this.tableModel.addRow(new Object[]{
+                    kind,
+                    sample.getIndex(),
+                    sample.getEntry(),
+                    sample.getLatency(),
+                    abbreviate(Json.stringify(sample.getParam())),
+                    abbreviate(sample.getError() != null ? sample.getError() : Json.stringify(sample.getResult()))
+            });
+        }
+    }
+
+    private void openSelected() {
+        int row = this.table.getSelectedRow();
+        if (row < 0) {
+            return;
+        }
+        this.opener.accept(this.rows.get(row).toDubboMethodEntity());
+        this.close(OK_EXIT_CODE);
+    }
+
+    private static String abbreviate(String text) {
+        return text.length() > MAX_CELL_LENGTH ? text.substring(0, MAX_CELL_LENGTH) + "..." : text;
+    }
+
+    /**
+     * 在新 tab 中加载选中的样本
+     */
+    private class OpenAction extends DialogWrapperAction {
+
+        OpenAction() {
+            super("Open in New Tab");
+        }
+
+        @Override
+        protected void doAction(ActionEvent e) {
+            openSelected();
+        }
+    }
+}
@@ -61,8 +61,11 @@ public class TabBar extends JBEditorTabs implements TabsListener {
     }
 
     public void closeTab(@NotNull String tabId) {
-        TabInfo tabInfo = tabsMap.get(tabId);
-        tabsMap.remove(tabId);
+        TabInfo tabInfo = tabsMap.remove(tabId);
+        if (tabInfo == null) {
+            return;
+        }
+        ((Tab) tabInfo.getComponent()).getDubboPanel().dispose();
         this.removeTab(tabInfo);
     }
 
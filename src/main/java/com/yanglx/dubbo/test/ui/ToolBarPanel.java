@@ -8,9 +8,11 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.SimpleToolWindowPanel;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.ui.JBSplitter;
+import com.intellij.ui.tabs.TabInfo;
 import com.yanglx.dubbo.test.action.AddTabAction;
 import com.yanglx.dubbo.test.action.CollectionsAbstractTabEditorAction;
 import com.yanglx.dubbo.test.action.HistoryAbstractTabEditorAction;
+import com.yanglx.dubbo.test.action.ReferencesAction;
 import com.yanglx.dubbo.test.action.SettingAction;
 
 import javax.swing.JComponent;
@@ -76,10 +78,12 @@ public class ToolBarPanel extends SimpleToolWindowPanel implements Disposable {
         HistoryAbstractTabEditorAction abstractTabEditorAction = new HistoryAbstractTabEditorAction(this.leftTree);
         CollectionsAbstractTabEditorAction collectionsAbstractTabEditorAction = new CollectionsAbstractTabEditorAction(this.leftTree);
         SettingAction settingAction = new SettingAction();
+        ReferencesAction referencesAction = new ReferencesAction();
         DefaultActionGroup actionGroup = new DefaultActionGroup();
         actionGroup.add(addTabAction);
         actionGroup.add(collectionsAbstractTabEditorAction);
         actionGroup.add(abstractTabEditorAction);
+        actionGroup.add(referencesAction);
         actionGroup.add(settingAction);
         ActionToolbar actionToolbar = this.actionManager.createActionToolbar("toolbar", actionGroup, false);
         actionToolbar.setTargetComponent(this.tabBar);
@@ -88,6 +92,9 @@ public class ToolBarPanel extends SimpleToolWindowPanel implements Disposable {
 
     @Override
     public void dispose() {
-
+        //取消所有 tab 中执行的请求
+        for (TabInfo tabInfo : this.tabBar.getTabs()) {
+            ((Tab) tabInfo.getComponent()).getDubboPanel().dispose();
+        }
     }
 }
@@ -1,22 +1,33 @@
 package com.yanglx.dubbo.test.ui;
 
+import com.intellij.ui.DocumentAdapter;
+import com.intellij.ui.SearchTextField;
 import com.intellij.ui.components.JBScrollPane;
 import com.intellij.ui.tabs.TabInfo;
 import com.intellij.ui.treeStructure.Tree;
 import com.yanglx.dubbo.test.CacheInfo;
 import com.yanglx.dubbo.test.DubboSetingState;
 import com.yanglx.dubbo.test.dubbo.DubboMethodEntity;
+import com.yanglx.dubbo.test.utils.IntellijUtils;
+import com.yanglx.dubbo.test.utils.StrUtils;
+import org.jetbrains.annotations.NotNull;
 
 import javax.swing.JMenuItem;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
+import javax.swing.ToolTipManager;
+import javax.swing.event.DocumentEvent;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreePath;
 import java.awt.BorderLayout;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class TreePanel extends JPanel {
 
@@ -26,11 +37,36 @@ public class TreePanel extends JPanel {
 
     private TabBar tabBar;
 
+    /**
+     * 按接口名, 方法名, 地址或参数搜索
+     */
+    private final SearchTextField searchField = new SearchTextField(false);
+
+    /**
+     * 是否在等待历史或索引加载完成
+     */
+    private boolean waitingForHistory;
+
     public TreePanel(TreeNodeTypeEnum treeNodeTypeEnum) {
         this.nowTreeNodeTypeEnum = treeNodeTypeEnum;
-        tree = new Tree();
+        tree = new Tree() {
+            @Override
+            public String getToolTipText(MouseEvent event) {
+                TreePath path = getPathForLocation(event.getX(), event.getY());
+                Object userObject = path == null ? null : ((DefaultMutableTreeNode) path.getLastPathComponent()).getUserObject();
+                return userObject instanceof CacheInfo ? toolTip((CacheInfo) userObject) : null;
+            }
+        };
+        ToolTipManager.sharedInstance().registerComponent(tree);
         JBScrollPane jScrollBar = new JBScrollPane(tree);
+        this.searchField.addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(@NotNull DocumentEvent e) {
+                setModel();
+            }
+        });
         this.setLayout(new BorderLayout());
+        this.add(this.searchField, BorderLayout.NORTH);
         this.add(jScrollBar, BorderLayout.CENTER);
         this.repaint();
         this.validate();
@@ -61,19 +97,29 @@ public class TreePanel extends JPanel {
     }
 
     /**
-     * 设置数据模型
+     * 设置数据模型, 有搜索内容时只显示匹配的记录
      */
     private void setModel() {
         List<CacheInfo> paramInfoCache;
         DefaultMutableTreeNode root;
+        String query = this.searchField.getText();
         if (TreeNodeTypeEnum.COLLECTIONS.equals(nowTreeNodeTypeEnum)) {
             root = new DefaultMutableTreeNode("Collections");
             DubboSetingState instance = DubboSetingState.getInstance();
-            paramInfoCache = instance.getParamInfoCache(DubboSetingState.CacheType.COLLECTIONS);
+            paramInfoCache = instance.search(query, DubboSetingState.CacheType.COLLECTIONS);
         } else {
-            root = new DefaultMutableTreeNode("History");
             DubboSetingState instance = DubboSetingState.getInstance();
-            paramInfoCache = instance.getParamInfoCache(DubboSetingState.CacheType.HISTORY);
+            //历史和索引在后台加载, 完成后再刷新
+            if (!instance.isHistoryLoaded()) {
+                root = new DefaultMutableTreeNode("History (loading...)");
+                this.setModelWhenDone(instance.historyLoaded());
+            } else if (!StrUtils.isBlank(query) && !instance.historyIndexed().isDone()) {
+                root = new DefaultMutableTreeNode("History (indexing...)");
+                this.setModelWhenDone(instance.historyIndexed());
+            } else {
+                root = new DefaultMutableTreeNode("History");
+            }
+            paramInfoCache = instance.search(query, DubboSetingState.CacheType.HISTORY);
         }
         for (CacheInfo dubboMethodEntity : paramInfoCache) {
             DefaultMutableTreeNode defaultMutableTreeNode = new DefaultMutableTreeNode(dubboMethodEntity, true);
@@ -83,6 +129,17 @@ public class TreePanel extends JPanel {
         tree.updateUI();
     }
 
+    private void setModelWhenDone(CompletableFuture<Void> future) {
+        if (this.waitingForHistory) {
+            return;
+        }
+        this.waitingForHistory = true;
+        future.thenRun(() -> IntellijUtils.safelyInvokeLater(() -> {
+            this.waitingForHistory = false;
+            this.setModel();
+        }));
+    }
+
     /**
      * 添加鼠标左键点击事件
      */
@@ -95,7 +152,7 @@ public class TreePanel extends JPanel {
             }
             Object userObject = lastSelectedPathComponent.getUserObject();
             if (userObject instanceof CacheInfo) {
-                CacheInfo cacheInfo = (CacheInfo) userObject;
+                CacheInfo cacheInfo = this.load((CacheInfo) userObject);
                 DubboMethodEntity dubboMethodEntity = cacheInfo.getDubboMethodEntity();
                 TabInfo selectedInfo = TabBar.getSelectionTabInfo();
                 if (selectedInfo != null) {
@@ -119,10 +176,15 @@ public class TreePanel extends JPanel {
             menu.add(menuItemAll);
             menuItemAll.addActionListener(e -> {
                 //删除所有
-                DubboSetingState.getInstance().historyParamInfoCacheList.clear();
-                this.refresh();
+                DubboSetingState.getInstance().clear(DubboSetingState.CacheType.HISTORY)
+                        .thenRun(() -> IntellijUtils.safelyInvokeLater(this::refresh));
             });
         }
+        if (TreeNodeTypeEnum.COLLECTIONS.equals(nowTreeNodeTypeEnum)) {
+            JMenuItem menuItemLoadTest = new JMenuItem("Load test selected...");
+            menu.add(menuItemLoadTest);
+            menuItemLoadTest.addActionListener(e -> this.loadTestSelected());
+        }
         menuItem.addActionListener(e -> {
             DefaultMutableTreeNode lastSelectedPathComponent = (DefaultMutableTreeNode) tree.getLastSelectedPathComponent();
             if (lastSelectedPathComponent == null) {
@@ -131,12 +193,10 @@ public class TreePanel extends JPanel {
             Object userObject = lastSelectedPathComponent.getUserObject();
             if (userObject instanceof CacheInfo) {
                 CacheInfo cacheInfo = (CacheInfo) userObject;
-                if (TreeNodeTypeEnum.COLLECTIONS.equals(this.nowTreeNodeTypeEnum)) {
-                    DubboSetingState.getInstance().remove(cacheInfo, DubboSetingState.CacheType.COLLECTIONS);
-                } else {
-                    DubboSetingState.getInstance().remove(cacheInfo, DubboSetingState.CacheType.HISTORY);
-                }
-                this.refresh();
+                DubboSetingState.CacheType cacheType = TreeNodeTypeEnum.COLLECTIONS.equals(this.nowTreeNodeTypeEnum)
+                        ? DubboSetingState.CacheType.COLLECTIONS : DubboSetingState.CacheType.HISTORY;
+                DubboSetingState.getInstance().remove(cacheInfo, cacheType)
+                        .thenRun(() -> IntellijUtils.safelyInvokeLater(this::refresh));
             }
         });
         //有限显示删除popup
@@ -154,7 +214,7 @@ public class TreePanel extends JPanel {
                     if (userObject instanceof CacheInfo) {
                         tabBar.addTab("" + e.getID() + e.getWhen());
                         Tab component = (Tab) TabBar.getSelectionTabInfo().getComponent();
-                        DubboMethodEntity dubboMethodEntity = ((CacheInfo) userObject).getDubboMethodEntity();
+                        DubboMethodEntity dubboMethodEntity = load((CacheInfo) userObject).getDubboMethodEntity();
                         DubboPanel.refreshUI(component.getDubboPanel(), dubboMethodEntity);
                     }
                     return;
@@ -164,7 +224,10 @@ public class TreePanel extends JPanel {
                 int y = e.getY();
                 if (e.getButton() == MouseEvent.BUTTON3) {
                     TreePath pathForLocation = tree.getPathForLocation(x, y);
-                    tree.setSelectionPath(pathForLocation);
+                    //在已选中的节点上右键时保留多选
+                    if (pathForLocation == null || !tree.isPathSelected(pathForLocation)) {
+                        tree.setSelectionPath(pathForLocation);
+                    }
                     menu.show(tree, x, y);
                 }
             }
@@ -172,6 +235,68 @@ public class TreePanel extends JPanel {
 
     }
 
+    /**
+     * 历史的执行次数和耗时
+     */
+    private static String toolTip(CacheInfo cacheInfo) {
+        if (cacheInfo.getHits() == null && cacheInfo.getLatencyCount() == null) {
+            return null;
+        }
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        StringBuilder text = new StringBuilder("runs: ").append(cacheInfo.getHits() == null ? 1 : cacheInfo.getHits());
+        Date lastRun = cacheInfo.getLastRun() != null ? cacheInfo.getLastRun() : cacheInfo.getDate();
+        if (lastRun != null) {
+            text.append(", last: ").append(format.format(lastRun));
+        }
+        if (cacheInfo.getLatencyCount() != null && cacheInfo.getLatencyCount() > 0) {
+            text.append(", latency min/avg/max: ").append(cacheInfo.getLatencyMin())
+                    .append('/').append(cacheInfo.getLatencyTotal() / cacheInfo.getLatencyCount())
+                    .append('/').append(cacheInfo.getLatencyMax()).append("ms");
+        }
+        return text.toString();
+    }
+
+    /**
+     * 树中的历史只有名称, 完整的内容按需读取
+     */
+    private CacheInfo load(CacheInfo cacheInfo) {
+        DubboSetingState.CacheType cacheType = TreeNodeTypeEnum.COLLECTIONS.equals(this.nowTreeNodeTypeEnum)
+                ? DubboSetingState.CacheType.COLLECTIONS : DubboSetingState.CacheType.HISTORY;
+        CacheInfo loaded = DubboSetingState.getInstance().getCacheInfo(cacheInfo.getId(), cacheType);
+        return loaded != null ? loaded : cacheInfo;
+    }
+
+    /**
+     * 把选中的收藏按权重组合成一个压测, 在当前 tab 中执行
+     */
+    private void loadTestSelected() {
+        TreePath[] selectionPaths = tree.getSelectionPaths();
+        TabInfo selectedInfo = TabBar.getSelectionTabInfo();
+        if (selectionPaths == null || selectedInfo == null) {
+            return;
+        }
+        List<CacheInfo> cacheInfos = new ArrayList<>();
+        for (TreePath selectionPath : selectionPaths) {
+            Object userObject = ((DefaultMutableTreeNode) selectionPath.getLastPathComponent()).getUserObject();
+            if (userObject instanceof CacheInfo) {
+                cacheInfos.add((CacheInfo) userObject);
+            }
+        }
+        if (cacheInfos.isEmpty()) {
+            return;
+        }
+        DubboPanel dubboPanel = ((Tab) selectedInfo.getComponent()).getDubboPanel();
+        if (!dubboPanel.getLoadBtn().isEnabled()) {
+            dubboPanel.getTip().setText("A load test is already running.");
+            return;
+        }
+        WorkloadMixDialog dialog = new WorkloadMixDialog(dubboPanel.getProject(), cacheInfos);
+        dialog.show();
+        if (dialog.isOK()) {
+            dubboPanel.runLoadTest(dialog.getWorkloadMix());
+        }
+    }
+
     public enum TreeNodeTypeEnum {
         HISTORY,
         COLLECTIONS
@@ -0,0 +1,95 @@
+package com.yanglx.dubbo.test.ui;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.ValidationInfo;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import com.yanglx.dubbo.test.CacheInfo;
+import com.yanglx.dubbo.test.load.WorkloadMix;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.JComponent;
+import javax.swing.table.DefaultTableModel;
+import java.awt.Dimension;
+import java.util.List;
+
+/**
+ * 为选中的收藏设置权重, 组合成一个压测
+ */
+public class WorkloadMixDialog extends DialogWrapper {
+
+    private static final String[] COLUMNS = {"Name", "Method", "Weight"};
+
+    private final List<CacheInfo> cacheInfos;
+
+    private final DefaultTableModel tableModel = new DefaultTableModel(COLUMNS, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return column == 2;
+        }
+
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            return columnIndex == 2 ? Integer.class : String.class;
+        }
+    };
+
+    private final JBTable table = new JBTable(tableModel);
+
+    public WorkloadMixDialog(@NotNull Project project, List<CacheInfo> cacheInfos) {
+        super(project);
+        this.cacheInfos = cacheInfos;
+        for (CacheInfo cacheInfo : cacheInfos) {
+            this.tableModel.addRow(new Object[]{
+                    cacheInfo.getName(),
+                    cacheInfo.getInterfaceName() + "#" + cacheInfo.getMethodName(),
+                    1
+            });
+        }
+        this.init();
+        this.setTitle("Workload Mix");
+    }
+
+    @Override
+    protected JComponent createCenterPanel() {
+        JBScrollPane scrollPane = new JBScrollPane(this.table);
+        scrollPane.setPreferredSize(new Dimension(600, 200));
+        return scrollPane;
+    }
+
+    @Nullable
+    @Override
+    protected ValidationInfo doValidate() {
+        if (this.table.isEditing()) {
+            this.table.getCellEditor().stopCellEditing();
+        }
+        int total = 0;
+        for (int row = 0; row < this.tableModel.getRowCount(); row++) {
+            Object weight = this.tableModel.getValueAt(row, 2);
+            if (!(weight instanceof Integer) || (Integer) weight < 0) {
+                return new ValidationInfo("Weight must not be negative", this.table);
+            }
+            total += (Integer) weight;
+        }
+        if (total <= 0) {
+            return new ValidationInfo("At least one weight must be positive", this.table);
+        }
+        return null;
+    }
+
+    /**
+     * 按设置的权重组合
+     *
+     * @return the workload mix
+     */
+    public WorkloadMix getWorkloadMix() {
+        WorkloadMix workloadMix = new WorkloadMix();
+        for (int row = 0; row < this.cacheInfos.size(); row++) {
+            CacheInfo cacheInfo = this.cacheInfos.get(row);
+            workloadMix.add(cacheInfo.getName(), cacheInfo.getDubboMethodEntity(), (Integer) this.tableModel.getValueAt(row, 2));
+        }
+        return workloadMix;
+    }
+}
@@ -33,6 +33,7 @@ public class MyDialogItemEditor implements TableModelEditor.DialogItemEditor<MyC
         //对应工具栏得复制
         MyConfigurableDubboSettings myConfigurableDubboSettings = new MyConfigurableDubboSettings(forInPlaceEditing ? item.getId() : UUID.randomUUID());
         myConfigurableDubboSettings.setConfig(item.getName(), item.getProcessedAddress(), item.getVersion(), item.getGroup());
+        myConfigurableDubboSettings.setMaxRps(item.getMaxRps());
         return myConfigurableDubboSettings;
     }
 
@@ -50,7 +51,9 @@ public class MyDialogItemEditor implements TableModelEditor.DialogItemEditor<MyC
         //对应工具栏得添加或者编辑按钮事件
         MyConfigurableDubboSettings settings = this.openDialog(item);
         if (settings != null) {
-            mutator.fun(item).setConfig(settings.getName(), settings.getProcessedAddress(), settings.getVersion(), settings.getGroup());
+            MyConfigurableDubboSettings mutable = mutator.fun(item);
+            mutable.setConfig(settings.getName(), settings.getProcessedAddress(), settings.getVersion(), settings.getGroup());
+            mutable.setMaxRps(settings.getMaxRps());
         }
     }
 
@@ -72,7 +75,7 @@ public class MyDialogItemEditor implements TableModelEditor.DialogItemEditor<MyC
                 .title("Dubbo Setting").centerPanel(settingDialog.getPanel());
         if (dialogBuilder.show() == DialogWrapper.OK_EXIT_CODE) {
             MyConfigurableDubboSettings myConfigurableDubboSettings = settingDialog.getMyConfigurableDubboSettings();
-            if (isExist(myConfigurableDubboSettings)) {
+            if (isExist(myConfigurableDubboSettings, browser.getId())) {
                 JLabel jLabel = new JLabel("Data duplication");
                 DialogBuilder msgDialog = new DialogBuilder(appSettingsComponent.getPanel())
                         .title("Dubbo Setting").centerPanel(jLabel);
@@ -85,6 +88,7 @@ public class MyDialogItemEditor implements TableModelEditor.DialogItemEditor<MyC
             browser.setVersion(myConfigurableDubboSettings.getVersion());
             browser.setGroup(myConfigurableDubboSettings.getGroup());
             browser.setName(myConfigurableDubboSettings.getName());
+            browser.setMaxRps(myConfigurableDubboSettings.getMaxRps());
             if (StrUtils.isNotBlank(browser.getProcessedAddress())) {
                 return browser;
             }
@@ -96,11 +100,15 @@ public class MyDialogItemEditor implements TableModelEditor.DialogItemEditor<MyC
      * 校验重复
      *
      * @param settings
+     * @param editingId 正在编辑的配置, 不和自己比较, 只修改每秒请求上限时不算重复
      * @return
      */
-    private boolean isExist(MyConfigurableDubboSettings settings) {
+    private boolean isExist(MyConfigurableDubboSettings settings, UUID editingId) {
         List<MyConfigurableDubboSettings> settings1 = appSettingsComponent.getSettings();
         for (MyConfigurableDubboSettings dubboSettings : settings1) {
+            if (dubboSettings.getId().equals(editingId)) {
+                continue;
+            }
             String item = dubboSettings.getName() + dubboSettings.getProcessedAddress() + dubboSettings.getVersion() + dubboSettings.getGroup();
             String item2 = settings.getName() + settings.getProcessedAddress() + settings.getVersion() + settings.getGroup();
             if (item.equals(item2)) {
@@ -17,6 +17,7 @@ public class SettingDialog {
     private JBTextField portField;
     private JBTextField versionField;
     private JBTextField groupField;
+    private JBTextField maxRpsField;
 
     private JPanel panel;
 
@@ -36,6 +37,7 @@ public class SettingDialog {
         this.portField = new JBTextField(browser.getPort());
         this.versionField = new JBTextField(browser.getVersion());
         this.groupField = new JBTextField(browser.getGroup());
+        this.maxRpsField = new JBTextField(browser.getMaxRps() == null ? "" : String.valueOf(browser.getMaxRps()));
 
         this.panel = FormBuilder.createFormBuilder()
                 .addLabeledComponent("Name", nameField)
@@ -44,6 +46,7 @@ public class SettingDialog {
                 .addLabeledComponent("Port", portField)
                 .addLabeledComponent("Version", versionField)
                 .addLabeledComponent("Group", groupField)
+                .addLabeledComponent("Max rps (empty = unlimited)", maxRpsField)
                 .getPanel();
     }
 
@@ -66,7 +69,23 @@ public class SettingDialog {
         configurableDubboSettings.setPort(port);
         configurableDubboSettings.setVersion(version);
         configurableDubboSettings.setGroup(group);
+        configurableDubboSettings.setMaxRps(parseMaxRps(this.maxRpsField.getText()));
         return configurableDubboSettings;
     }
 
+    /**
+     * 每秒请求上限, 为空或无法解析时不限制
+     */
+    private static Integer parseMaxRps(String text) {
+        if (StrUtils.isBlank(text)) {
+            return null;
+        }
+        try {
+            int maxRps = Integer.parseInt(text.trim());
+            return maxRps > 0 ? maxRps : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
 }
@@ -44,6 +44,18 @@ public class PluginUtils {
                 () -> document.setText(text));
     }
 
+    /**
+     * 在文档末尾追加文本
+     *
+     * @param project  project
+     * @param document document
+     * @param text     text
+     */
+    public static void appendDocument(Project project, Document document, String text) {
+        WriteCommandAction.runWriteCommandAction(project, PluginConstants.PLUGIN_NAME, PluginConstants.PLUGIN_NAME,
+                () -> document.insertString(document.getTextLength(), text));
+    }
+
     /**
      * element 只有是 method 或者是 method 引用时才可用.
      *
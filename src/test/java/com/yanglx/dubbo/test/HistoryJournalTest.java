@@ -0,0 +1,234 @@
+package com.yanglx.dubbo.test;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HistoryJournalTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * 手动执行的压缩任务, 用于在压缩前后插入修改
+     */
+    private final Deque<Runnable> compactions = new ArrayDeque<>();
+
+    private int sequence;
+
+    @Test
+    public void addHitRemoveCompactAndReopen() throws IOException {
+        Path file = this.temp.getRoot().toPath().resolve("history.jsonl");
+        HistoryJournal journal = HistoryJournal.open(file, 0, 0, Runnable::run);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ids.add(journal.add(this.entry(i)));
+        }
+        //内容相同的历史合并, 只增加执行次数
+        assertEquals(ids.get(3), journal.add(this.entry(3)));
+        journal.remove(ids.get(5));
+        for (int i = 0; i < 100; i++) {
+            journal.recordLatency(ids.get(7), i);
+        }
+        //没有压缩时是 10 + 1 + 1 + 100 行
+        assertTrue(lines(file) < 60);
+
+        journal.close();
+        journal = HistoryJournal.open(file, 0, 0, Runnable::run);
+
+        assertEquals(9, journal.newestFirst().size());
+        //合并的历史移动到最新的位置, 只记录耗时不移动
+        assertEquals(ids.get(3), journal.newestFirst().get(0).getId());
+        assertEquals(ids.get(9), journal.newestFirst().get(1).getId());
+        assertNull(journal.get(ids.get(5)));
+        for (int i = 0; i < 10; i++) {
+            if (i != 5) {
+                assertEquals(param(i), journal.get(ids.get(i)).getParamObjJson());
+            }
+        }
+        assertEquals(Integer.valueOf(2), journal.get(ids.get(3)).getHits());
+        assertEquals(Integer.valueOf(100), journal.get(ids.get(7)).getLatencyCount());
+        assertEquals(Long.valueOf(99), journal.get(ids.get(7)).getLatencyMax());
+        assertEquals(ids.get(4), journal.add(this.entry(4)));
+        journal.close();
+    }
+
+    @Test
+    public void appendsDuringCompactionAreKept() throws IOException {
+        Path file = this.temp.getRoot().toPath().resolve("history.jsonl");
+        HistoryJournal journal = HistoryJournal.open(file, 0, 0, this.compactions::add);
+        Map<String, Integer> live = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            live.put(journal.add(this.entry(i)), i);
+        }
+        String first = journal.newestFirst().get(19).getId();
+        //统计行在快照之前, 压缩时复制
+        String early = journal.newestFirst().get(15).getId();
+        journal.recordLatency(early, 5);
+        for (int i = 0; i < 100; i++) {
+            journal.recordLatency(first, i);
+        }
+        assertEquals(1, this.compactions.size());
+
+        //压缩开始之后追加的记录, 统计和删除
+        for (int i = 20; i < 25; i++) {
+            live.put(journal.add(this.entry(i)), i);
+        }
+        String appended = journal.newestFirst().get(0).getId();
+        String copied = journal.newestFirst().get(10).getId();
+        journal.recordLatency(appended, 7);
+        journal.recordLatency(copied, 9);
+        journal.recordLatency(first, 100);
+        String removed = journal.newestFirst().get(5).getId();
+        journal.remove(removed);
+        live.remove(removed);
+        int before = lines(file);
+        this.compactions.poll().run();
+
+        assertTrue(lines(file) < before);
+        this.assertEntries(journal, live);
+        assertEquals(Integer.valueOf(101), journal.get(first).getLatencyCount());
+        assertEquals(Integer.valueOf(1), journal.get(appended).getLatencyCount());
+        assertEquals(Integer.valueOf(1), journal.get(copied).getLatencyCount());
+        assertEquals(Long.valueOf(5), journal.get(early).getLatencyMax());
+
+        //压缩之后继续追加, 重新打开后的位置仍然正确
+        live.put(journal.add(this.entry(99)), 99);
+        journal.recordLatency(first, 1);
+        journal.close();
+        journal = HistoryJournal.open(file, 0, 0, this.compactions::add);
+
+        this.assertEntries(journal, live);
+        assertNull(journal.get(removed));
+        assertEquals(Integer.valueOf(102), journal.get(first).getLatencyCount());
+        assertEquals(Integer.valueOf(1), journal.get(appended).getLatencyCount());
+        assertEquals(Long.valueOf(5), journal.get(early).getLatencyMax());
+        journal.close();
+    }
+
+    @Test
+    public void clearDuringCompactionDiscardsTheResult() throws IOException {
+        Path file = this.temp.getRoot().toPath().resolve("history.jsonl");
+        HistoryJournal journal = HistoryJournal.open(file, 0, 0, this.compactions::add);
+        String id = journal.add(this.entry(0));
+        for (int i = 0; i < 100; i++) {
+            journal.recordLatency(id, i);
+        }
+        assertEquals(1, this.compactions.size());
+
+        journal.clear();
+        String added = journal.add(this.entry(1));
+        this.compactions.poll().run();
+
+        assertEquals(1, lines(file));
+        assertEquals(1, journal.newestFirst().size());
+        assertEquals(param(1), journal.get(added).getParamObjJson());
+        journal.close();
+    }
+
+    @Test
+    public void corruptLinesAreSkippedAndTornTailIsTruncated() throws IOException {
+        Path file = this.temp.getRoot().toPath().resolve("history.jsonl");
+        HistoryJournal journal = HistoryJournal.open(file, 0, 0, Runnable::run);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(journal.add(this.entry(i)));
+        }
+        journal.close();
+        List<String> lines = new ArrayList<>(Files.readAllLines(file));
+        lines.add(2, "{\"op\":\"add\",\"id\":");
+        lines.add(4, "not json");
+        Files.write(file, (String.join("\n", lines) + "\n{\"op\":\"add\",\"id\":\"torn")
+                .getBytes(StandardCharsets.UTF_8));
+
+        journal = HistoryJournal.open(file, 0, 0, Runnable::run);
+
+        assertEquals(5, journal.newestFirst().size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(param(i), journal.get(ids.get(i)).getParamObjJson());
+        }
+        List<String> after = Files.readAllLines(file);
+        assertEquals(7, after.size());
+        assertFalse(after.get(after.size() - 1).contains("torn"));
+
+        //截断后追加的行从完整的行之后开始
+        String added = journal.add(this.entry(5));
+        journal.close();
+        journal = HistoryJournal.open(file, 0, 0, Runnable::run);
+        assertEquals(6, journal.newestFirst().size());
+        assertEquals(param(5), journal.get(added).getParamObjJson());
+        journal.close();
+    }
+
+    @Test
+    public void readAllReturnsLiveEntries() throws IOException {
+        Path file = this.temp.getRoot().toPath().resolve("history.jsonl");
+        HistoryJournal journal = HistoryJournal.open(file, 3, 0, Runnable::run);
+        for (int i = 0; i < 5; i++) {
+            journal.add(this.entry(i));
+        }
+        Map<String, CacheInfo> read = new HashMap<>();
+
+        journal.readAll(read::put);
+
+        assertEquals(3, read.size());
+        for (CacheInfo header : journal.newestFirst()) {
+            assertNotNull(read.get(header.getId()));
+            assertEquals(journal.get(header.getId()).getParamObjJson(), read.get(header.getId()).getParamObjJson());
+        }
+        journal.close();
+    }
+
+    private void assertEntries(HistoryJournal journal, Map<String, Integer> live) {
+        assertEquals(live.size(), journal.newestFirst().size());
+        for (Map.Entry<String, Integer> entry : live.entrySet()) {
+            CacheInfo cacheInfo = journal.get(entry.getKey());
+            assertNotNull(entry.getKey(), cacheInfo);
+            assertEquals(param(entry.getValue()), cacheInfo.getParamObjJson());
+        }
+    }
+
+    private CacheInfo entry(int index) {
+        CacheInfo cacheInfo = new CacheInfo();
+        cacheInfo.setId("id-" + this.sequence++);
+        cacheInfo.setName("sayHello#DemoService");
+        cacheInfo.setDate(new Date(this.sequence));
+        cacheInfo.setInterfaceName("org.apache.dubbo.demo.DemoService");
+        cacheInfo.setMethodName("sayHello");
+        cacheInfo.setParamObjJson(param(index));
+        return cacheInfo;
+    }
+
+    /**
+     * 部分参数超过压缩的长度
+     */
+    private static String param(int index) {
+        StringBuilder param = new StringBuilder("[\"");
+        for (int i = 0; i < index % 3 * 100; i++) {
+            param.append(i);
+        }
+        return param.append("\",").append(index).append(']').toString();
+    }
+
+    private static int lines(Path file) throws IOException {
+        return Files.readAllLines(file).size();
+    }
+}
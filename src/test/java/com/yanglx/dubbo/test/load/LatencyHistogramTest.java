@@ -0,0 +1,122 @@
+package com.yanglx.dubbo.test.load;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private static final long HOUR_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    private static final double[] PERCENTILES = {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999, 1};
+
+    @Test
+    public void decodeRestoresEncodedHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            //覆盖区间 0 和之后的多个区间
+            histogram.recordNanos((long) Math.exp(random.nextDouble() * Math.log(HOUR_NANOS)));
+        }
+        for (long micros : new long[]{0, 1, 511, 512, 513, 1023, 1024, 1025}) {
+            histogram.recordNanos(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+        histogram.recordNanos(HOUR_NANOS);
+
+        LatencyHistogram decoded = LatencyHistogram.decode(histogram.encode());
+
+        assertSameHistogram(histogram, decoded);
+    }
+
+    @Test
+    public void decodeRestoresEmptyHistogram() {
+        LatencyHistogram decoded = LatencyHistogram.decode(new LatencyHistogram().encode());
+
+        assertEquals(0, decoded.getCount());
+        assertEquals(0, decoded.getMinNanos());
+        assertEquals(0, decoded.getMaxNanos());
+        assertEquals(0, decoded.getValueAtPercentile(0.99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeRejectsOtherVersions() {
+        //版本 2, 其他字段为 0
+        LatencyHistogram.decode("eJxj4mRgYAAAADMADA==");
+    }
+
+    @Test
+    public void percentileErrorIsBoundedAtRangeBoundaries() {
+        for (int bit = 0; bit < 32; bit++) {
+            for (long micros : new long[]{(1L << bit) - 1, 1L << bit, (1L << bit) + 1}) {
+                if (micros <= 0 || micros >= TimeUnit.HOURS.toMicros(1)) {
+                    continue;
+                }
+                LatencyHistogram histogram = new LatencyHistogram();
+                histogram.recordNanos(TimeUnit.MICROSECONDS.toNanos(micros));
+                //更大的值使得中位数取桶的上界, 而不是记录的最大值
+                histogram.recordNanos(HOUR_NANOS);
+
+                long reported = TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(0.5));
+
+                assertTrue(micros + " reported as " + reported, reported >= micros);
+                assertTrue(micros + " reported as " + reported, reported - micros <= micros * 0.004);
+            }
+        }
+    }
+
+    @Test
+    public void valuesOutsideTheRangeAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(TimeUnit.HOURS.toNanos(2));
+        histogram.recordNanos(Long.MAX_VALUE);
+        histogram.recordNanos(-1);
+
+        assertEquals(3, histogram.getCount());
+        assertEquals(0, histogram.getMinNanos());
+        assertEquals(HOUR_NANOS, histogram.getMaxNanos());
+        assertEquals(HOUR_NANOS, histogram.getValueAtPercentile(1));
+        assertSameHistogram(histogram, LatencyHistogram.decode(histogram.encode()));
+    }
+
+    @Test
+    public void recorderMergesPerThreadHistograms() throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder();
+        LatencyHistogram expected = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long base = TimeUnit.MILLISECONDS.toNanos(t + 1);
+            for (int i = 0; i < 1000; i++) {
+                expected.recordNanos(base + i * 1000L);
+            }
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    recorder.recordNanos(base + i * 1000L);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertSameHistogram(expected, recorder.merge());
+    }
+
+    private static void assertSameHistogram(LatencyHistogram expected, LatencyHistogram actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getMinNanos(), actual.getMinNanos());
+        assertEquals(expected.getMaxNanos(), actual.getMaxNanos());
+        assertEquals(expected.getMeanNanos(), actual.getMeanNanos());
+        for (double percentile : PERCENTILES) {
+            assertEquals("p" + percentile, expected.getValueAtPercentile(percentile), actual.getValueAtPercentile(percentile));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.yanglx.dubbo.test.load;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RequestTemplateTest {
+
+    @Test
+    public void paramWithoutPlaceholdersIsConstant() {
+        Map<String, Object> user = Collections.singletonMap("name", "${not closed");
+        RequestTemplate template = RequestTemplate.compile(new Object[]{"plain", 1, user});
+
+        assertTrue(template.isConstant());
+        assertFalse(template.readsColumns());
+        Object[] filled = template.fill(RequestTemplate.EMPTY_ROW);
+        assertEquals("plain", filled[0]);
+        assertSame(user, filled[2]);
+    }
+
+    @Test
+    public void constantSubTreesAreShared() {
+        Map<String, Object> address = Collections.singletonMap("city", "Chengdu");
+        List<Object> tags = Arrays.asList("a", "b");
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("address", address);
+        user.put("id", "${id:long}");
+        RequestTemplate template = RequestTemplate.compile(new Object[]{user, tags});
+
+        assertFalse(template.isConstant());
+        assertTrue(template.readsColumns());
+        Object[] first = template.fill(row("id", "1"));
+        Object[] second = template.fill(row("id", "2"));
+
+        assertSame(tags, first[1]);
+        assertSame(address, ((Map<?, ?>) first[0]).get("address"));
+        assertSame(address, ((Map<?, ?>) second[0]).get("address"));
+        assertEquals(1L, ((Map<?, ?>) first[0]).get("id"));
+        assertEquals(2L, ((Map<?, ?>) second[0]).get("id"));
+        //模板中的原始参数不被修改
+        assertEquals("${id:long}", user.get("id"));
+    }
+
+    @Test
+    public void mixedLiteralsAndSlotsAreConcatenated() {
+        RequestTemplate template = RequestTemplate.compile(new Object[]{"user-${id}-${seq:10}!", "${seq}"});
+
+        assertEquals("user-7-10!", template.fill(row("id", 7))[0]);
+        assertEquals("user-8-11!", template.fill(row("id", 8))[0]);
+        assertEquals(2L, template.fill(row("id", 9))[1]);
+    }
+
+    @Test
+    public void nestedArraysAndListsAreFilled() {
+        Object[] inner = {"${seq}", "x"};
+        RequestTemplate template = RequestTemplate.compile(new Object[]{inner, Arrays.asList("${name}", 1)});
+
+        Object[] filled = template.fill(row("name", "n"));
+
+        assertEquals(Arrays.asList(0L, "x"), Arrays.asList((Object[]) filled[0]));
+        assertEquals(Arrays.asList("n", 1), filled[1]);
+    }
+
+    @Test
+    public void wholePlaceholderIsConvertedToItsType() {
+        Map<String, Object> row = row("value", " 42 ");
+        row.put("flag", "true");
+        row.put("number", 5);
+        row.put("missing", null);
+
+        assertEquals(42, fill("${value:int}", row));
+        assertEquals(42L, fill("${value:LONG}", row));
+        assertEquals(42.0, fill("${value:double}", row));
+        assertEquals(true, fill("${flag:boolean}", row));
+        assertEquals("5", fill("${number:string}", row));
+        assertSame(row.get("number"), fill("${number}", row));
+        assertEquals(null, fill("${missing:int}", row));
+    }
+
+    @Test
+    public void conversionFailuresAndUnknownColumnsAreRejected() {
+        assertFillFails("${value:int}", row("value", "4.2"));
+        assertFillFails("${value:long}", row("value", "abc"));
+        assertFillFails("${other}", row("value", "1"));
+        assertFillFails("${value}", RequestTemplate.EMPTY_ROW);
+    }
+
+    @Test
+    public void invalidPlaceholdersAreRejected() {
+        for (String invalid : new String[]{"${}", "${ : int}", "${value:date}", "${a:b:c}", "${seq:x}",
+                "${seq:1:2}", "${random}", "${random:1}", "${random:a:2}", "${random:5:1}",
+                "${random:0:" + Long.MAX_VALUE + "}", "${uuid:4}", "prefix-${seq:x}"}) {
+            try {
+                RequestTemplate.compile(new Object[]{invalid});
+                fail(invalid + " should be rejected");
+            } catch (IllegalArgumentException expected) {
+                //保留名和格式错误在编译时报错
+            }
+        }
+    }
+
+    @Test
+    public void randomStaysWithinInclusiveBounds() {
+        RequestTemplate template = RequestTemplate.compile(new Object[]{"${random:-2:2}", "${random:3:3}"});
+        Set<Object> seen = new HashSet<>();
+
+        for (int i = 0; i < 2000; i++) {
+            Object[] filled = template.fill(RequestTemplate.EMPTY_ROW);
+            long value = (Long) filled[0];
+            assertTrue(String.valueOf(value), value >= -2 && value <= 2);
+            assertEquals(3L, filled[1]);
+            seen.add(value);
+        }
+        assertEquals(5, seen.size());
+        assertFalse(template.readsColumns());
+    }
+
+    @Test
+    public void uuidIsRandomVersion4() {
+        RequestTemplate template = RequestTemplate.compile(new Object[]{"${uuid}"});
+
+        UUID first = UUID.fromString((String) template.fill(RequestTemplate.EMPTY_ROW)[0]);
+        UUID second = UUID.fromString((String) template.fill(RequestTemplate.EMPTY_ROW)[0]);
+
+        assertEquals(4, first.version());
+        assertEquals(2, first.variant());
+        assertFalse(first.equals(second));
+    }
+
+    private static Object fill(String placeholder, Map<String, Object> row) {
+        return RequestTemplate.compile(new Object[]{placeholder}).fill(row)[0];
+    }
+
+    private static void assertFillFails(String placeholder, Map<String, Object> row) {
+        RequestTemplate template = RequestTemplate.compile(new Object[]{placeholder});
+        try {
+            template.fill(row);
+            fail(placeholder + " should fail for " + row);
+        } catch (IllegalArgumentException expected) {
+            //填充时才知道列和值
+        }
+    }
+
+    private static Map<String, Object> row(String column, Object value) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(column, value);
+        return row;
+    }
+}